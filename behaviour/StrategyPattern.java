@@ -1,5 +1,16 @@
 package behaviour;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
 public class StrategyPattern {
 
   // Strategy interface
@@ -58,6 +69,215 @@ public class StrategyPattern {
     }
   }
 
+  // Input to rule selection: the discrete and numeric facts about one cart
+  public static class CartContext {
+    final String segment;
+    final String category;
+    final double basketTotal;
+    final LocalDate date;
+
+    public CartContext(String segment, String category, double basketTotal, LocalDate date) {
+      this.segment = segment;
+      this.category = category;
+      this.basketTotal = basketTotal;
+      this.date = date;
+    }
+  }
+
+  // A rule picks a strategy when all its conditions hold.
+  // null segment/category means "any"; basket range is [minTotal, maxTotal).
+  public static class DiscountRule {
+    final String segment;
+    final String category;
+    final double minTotal;
+    final double maxTotal;
+    final LocalDate from; // inclusive, null = open
+    final LocalDate until; // inclusive, null = open
+    final int priority; // higher wins
+    final DiscountStrategy strategy;
+
+    public DiscountRule(String segment, String category, double minTotal, double maxTotal,
+        LocalDate from, LocalDate until, int priority, DiscountStrategy strategy) {
+      if (minTotal > maxTotal) throw new IllegalArgumentException("minTotal > maxTotal");
+      this.segment = segment;
+      this.category = category;
+      this.minTotal = minTotal;
+      this.maxTotal = maxTotal;
+      this.from = from;
+      this.until = until;
+      this.priority = priority;
+      this.strategy = strategy;
+    }
+
+  }
+
+  // Selector: compiles rules once into an index so selection does not scan every rule.
+  //  - hash on (segment, category), with "any" buckets for wildcard rules
+  //  - per bucket, a segment tree over the basket-total axis; each rule is stored
+  //    only at the O(log n) canonical nodes that cover its total range
+  //  - each node pre-splits the date axis: for every elementary date interval it
+  //    keeps the single best rule covering it, so no rule list is ever scanned
+  // A lookup is 4 hash probes, each followed by one root-to-leaf walk with a
+  // binary search per node: O(log^2 n) with no per-rule work. Build is
+  // O(n log^2 n) time and O(n log n) memory.
+  // Ties on priority go to the rule listed first, across buckets too.
+  public static class RuleBasedDiscountSelector {
+    private static final String ANY = "*";
+
+    private final Map<String, IntervalIndex> buckets = new HashMap<>();
+    private final DiscountRule[] all;
+    private final DiscountStrategy fallback;
+
+    public RuleBasedDiscountSelector(List<DiscountRule> rules, DiscountStrategy fallback) {
+      this.fallback = fallback;
+      this.all = rules.toArray(new DiscountRule[0]);
+      Map<String, List<Integer>> grouped = new HashMap<>();
+      for (int i = 0; i < all.length; i++) {
+        grouped.computeIfAbsent(key(all[i].segment, all[i].category), k -> new ArrayList<>()).add(i);
+      }
+      for (Map.Entry<String, List<Integer>> e : grouped.entrySet()) {
+        buckets.put(e.getKey(), new IntervalIndex(all, e.getValue()));
+      }
+    }
+
+    public DiscountStrategy select(CartContext ctx) {
+      int best = -1;
+      best = better(best, ctx, key(ctx.segment, ctx.category));
+      best = better(best, ctx, key(ctx.segment, null));
+      best = better(best, ctx, key(null, ctx.category));
+      best = better(best, ctx, key(null, null));
+      return best < 0 ? fallback : all[best].strategy;
+    }
+
+    // Convenience: pick the strategy and install it on the cart
+    public void applyTo(ShoppingCart cart, CartContext ctx) {
+      cart.setDiscount(select(ctx));
+    }
+
+    // Rule indexes; -1 means none
+    private int better(int current, CartContext ctx, String key) {
+      IntervalIndex idx = buckets.get(key);
+      if (idx == null) return current;
+      int candidate = idx.find(ctx.basketTotal, ctx.date);
+      if (candidate < 0) return current;
+      return (current < 0 || compareRank(all, candidate, current) < 0) ? candidate : current;
+    }
+
+    // Higher priority first, then earlier rule
+    private static int compareRank(DiscountRule[] all, int a, int b) {
+      int byPriority = Integer.compare(all[b].priority, all[a].priority);
+      return byPriority != 0 ? byPriority : Integer.compare(a, b);
+    }
+
+    private static String key(String segment, String category) {
+      return (segment == null ? ANY : segment) + '|' + (category == null ? ANY : category);
+    }
+
+    // Segment tree over elementary total intervals: slot i covers
+    // [bounds[i], bounds[i+1]). Node data: sorted date cuts (epoch days) and,
+    // per date slot, the index of the best covering rule (-1 if none).
+    private static final class IntervalIndex {
+      private final DiscountRule[] all;
+      private final double[] bounds;
+      private final int slots;
+      private final long[][] dateCuts;
+      private final int[][] bestRule;
+
+      IntervalIndex(DiscountRule[] all, List<Integer> members) {
+        this.all = all;
+        bounds = members.stream()
+            .flatMapToDouble(i -> DoubleStream.of(all[i].minTotal, all[i].maxTotal))
+            .sorted().distinct().toArray();
+        slots = Math.max(0, bounds.length - 1);
+        int nodes = 4 * Math.max(slots, 1);
+        dateCuts = new long[nodes][];
+        bestRule = new int[nodes][];
+
+        List<List<Integer>> atNode = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) atNode.add(null);
+        for (int i : members) {
+          int lo = Arrays.binarySearch(bounds, all[i].minTotal);
+          int hi = Arrays.binarySearch(bounds, all[i].maxTotal);
+          if (lo < hi) insert(atNode, 1, 0, slots, lo, hi, i);
+        }
+        for (int n = 0; n < nodes; n++) {
+          if (atNode.get(n) != null) compile(n, atNode.get(n));
+        }
+      }
+
+      private static void insert(List<List<Integer>> atNode, int node, int l, int r, int lo, int hi, int rule) {
+        if (lo <= l && r <= hi) {
+          if (atNode.get(node) == null) atNode.set(node, new ArrayList<>());
+          atNode.get(node).add(rule);
+          return;
+        }
+        int mid = (l + r) >>> 1;
+        if (lo < mid) insert(atNode, 2 * node, l, mid, lo, hi, rule);
+        if (hi > mid) insert(atNode, 2 * node + 1, mid, r, lo, hi, rule);
+      }
+
+      // Sweep over the date cuts with a heap of active rules (best on top)
+      private void compile(int node, List<Integer> rules) {
+        long[] cuts = rules.stream()
+            .flatMapToLong(i -> LongStream.of(start(all[i]), end(all[i])))
+            .sorted().distinct().toArray();
+        rules.sort(Comparator.comparingLong(i -> start(all[i])));
+        PriorityQueue<Integer> active = new PriorityQueue<>((a, b) -> compareRank(all, a, b));
+        int[] best = new int[cuts.length];
+        int next = 0;
+        for (int c = 0; c < cuts.length; c++) {
+          while (next < rules.size() && start(all[rules.get(next)]) <= cuts[c]) active.add(rules.get(next++));
+          while (!active.isEmpty() && end(all[active.peek()]) <= cuts[c]) active.poll();
+          best[c] = active.isEmpty() ? -1 : active.peek();
+        }
+        dateCuts[node] = cuts;
+        bestRule[node] = best;
+      }
+
+      private static long start(DiscountRule r) {
+        return r.from == null ? Long.MIN_VALUE : r.from.toEpochDay();
+      }
+
+      // Exclusive end day
+      private static long end(DiscountRule r) {
+        return r.until == null ? Long.MAX_VALUE : r.until.toEpochDay() + 1;
+      }
+
+      // Index of the best matching rule, or -1
+      int find(double total, LocalDate date) {
+        int pos = Arrays.binarySearch(bounds, total);
+        int slot = pos >= 0 ? pos : -pos - 2; // index of greatest bound <= total
+        if (slot < 0 || slot >= slots) return -1;
+        long day = date.toEpochDay();
+        int best = -1;
+        int node = 1;
+        int l = 0;
+        int r = slots;
+        while (true) {
+          long[] cuts = dateCuts[node];
+          if (cuts != null) {
+            int p = Arrays.binarySearch(cuts, day);
+            int d = p >= 0 ? p : -p - 2;
+            if (d >= 0) {
+              int candidate = bestRule[node][d];
+              if (candidate >= 0 && (best < 0 || compareRank(all, candidate, best) < 0)) best = candidate;
+            }
+          }
+          if (r - l == 1) break;
+          int mid = (l + r) >>> 1;
+          if (slot < mid) {
+            node = 2 * node;
+            r = mid;
+          } else {
+            node = 2 * node + 1;
+            l = mid;
+          }
+        }
+        return best;
+      }
+    }
+  }
+
   public static void main(String[] args) {
     ShoppingCart cart = new ShoppingCart(new NoDiscount());
     System.out.println(cart.checkout(100)); // 100.0
@@ -67,6 +287,23 @@ public class StrategyPattern {
 
     cart.setDiscount(new FixedAmountDiscount(15)); // $15 off
     System.out.println(cart.checkout(100)); // 85.0
+
+    // Rule-driven selection instead of picking by hand
+    LocalDate sale = LocalDate.of(2024, 11, 29);
+    RuleBasedDiscountSelector selector = new RuleBasedDiscountSelector(List.of(
+        new DiscountRule("vip", null, 0, Double.MAX_VALUE, null, null, 10, new PercentageDiscount(0.1)),
+        new DiscountRule(null, "books", 50, Double.MAX_VALUE, null, null, 5, new FixedAmountDiscount(5)),
+        new DiscountRule(null, null, 100, Double.MAX_VALUE, sale, sale, 20, new PercentageDiscount(0.3))
+    ), new NoDiscount());
+
+    selector.applyTo(cart, new CartContext("vip", "toys", 100, LocalDate.of(2024, 1, 1)));
+    System.out.println(cart.checkout(100)); // 90.0 (vip)
+    selector.applyTo(cart, new CartContext("regular", "books", 60, LocalDate.of(2024, 1, 1)));
+    System.out.println(cart.checkout(60)); // 55.0 (books over 50)
+    selector.applyTo(cart, new CartContext("vip", "books", 100, sale));
+    System.out.println(cart.checkout(100)); // 70.0 (sale day wins on priority)
+    selector.applyTo(cart, new CartContext("regular", "toys", 20, sale));
+    System.out.println(cart.checkout(20)); // 20.0 (fallback)
   }
 }
 
@@ -1,39 +1,58 @@
 package creational;
 
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+
 public class AbstractFactoryPattern {
   // Product interfaces
-  public interface Button {
-    void paint();
+  // Widgets describe what to draw; where it goes is up to the caller
+  public interface Widget {
+    String paintCommand();
+
+    default void paint() {
+      System.out.println(paintCommand());
+    }
+
+    default void paint(FrameBuffer frame) {
+      frame.add(paintCommand());
+    }
   }
-  public interface Checkbox {
-    void paint();
+  public interface Button extends Widget {
+  }
+  public interface Checkbox extends Widget {
+  }
+
+  // Stateful widgets that can be put back in their initial state for reuse
+  public interface Resettable {
+    void reset();
   }
 
   // Concrete products for Windows
   public static class WindowsButton implements Button {
     @Override
-    public void paint() {
-      System.out.println("Rendering a Windows button.");
+    public String paintCommand() {
+      return "Rendering a Windows button.";
     }
   }
   public static class WindowsCheckbox implements Checkbox {
     @Override
-    public void paint() {
-      System.out.println("Rendering a Windows checkbox.");
+    public String paintCommand() {
+      return "Rendering a Windows checkbox.";
     }
   }
 
   // Concrete products for MacOS
   public static class MacButton implements Button {
     @Override
-    public void paint() {
-      System.out.println("Rendering a MacOS button.");
+    public String paintCommand() {
+      return "Rendering a MacOS button.";
     }
   }
   public static class MacCheckbox implements Checkbox {
     @Override
-    public void paint() {
-      System.out.println("Rendering a MacOS checkbox.");
+    public String paintCommand() {
+      return "Rendering a MacOS checkbox.";
     }
   }
 
@@ -43,8 +62,13 @@ public class AbstractFactoryPattern {
     Checkbox createCheckbox();
   }
 
+  // Marker for families whose widgets keep no state, so one instance of each
+  // product can be shared by every caller
+  public interface StatelessWidgets {
+  }
+
   // Concrete factory for each family
-  public static class WindowsFactory implements UiFactory {
+  public static class WindowsFactory implements UiFactory, StatelessWidgets {
     @Override
     public Button createButton() {
       return new WindowsButton();
@@ -55,7 +79,7 @@ public class AbstractFactoryPattern {
     }
   }
 
-  public static class MacFactory implements UiFactory {
+  public static class MacFactory implements UiFactory, StatelessWidgets {
     @Override
     public Button createButton() {
       return new MacButton();
@@ -66,19 +90,134 @@ public class AbstractFactoryPattern {
     }
   }
 
-  // Cross-platform renderer
+  // Hands out one shared instance per product of the wrapped family. Only for
+  // families marked StatelessWidgets.
+  public static class CachingUiFactory implements UiFactory {
+    private final Button button;
+    private final Checkbox checkbox;
+
+    public CachingUiFactory(UiFactory family) {
+      if (!(family instanceof StatelessWidgets)) {
+        throw new IllegalArgumentException(family.getClass().getName() + " is not marked StatelessWidgets");
+      }
+      this.button = family.createButton();
+      this.checkbox = family.createCheckbox();
+    }
+
+    @Override
+    public Button createButton() {
+      return button;
+    }
+    @Override
+    public Checkbox createCheckbox() {
+      return checkbox;
+    }
+  }
+
+  // Reuses widgets of a stateful family: release() resets a widget and keeps
+  // it for the next create call. Widgets that are not Resettable cannot be
+  // made clean again, so they are not kept. Single-threaded, like a render loop.
+  public static class PooledUiFactory implements UiFactory {
+    private final UiFactory family;
+    private final ArrayDeque<Button> buttons = new ArrayDeque<>();
+    private final ArrayDeque<Checkbox> checkboxes = new ArrayDeque<>();
+
+    public PooledUiFactory(UiFactory family) {
+      this.family = family;
+    }
+
+    @Override
+    public Button createButton() {
+      Button b = buttons.poll();
+      return b != null ? b : family.createButton();
+    }
+    @Override
+    public Checkbox createCheckbox() {
+      Checkbox c = checkboxes.poll();
+      return c != null ? c : family.createCheckbox();
+    }
+
+    public void release(Widget widget) {
+      if (!(widget instanceof Resettable)) return;
+      ((Resettable) widget).reset();
+      if (widget instanceof Button) buttons.push((Button) widget);
+      else if (widget instanceof Checkbox) checkboxes.push((Checkbox) widget);
+    }
+  }
+
+  // Destination for a finished frame
+  public interface PaintSink {
+    void flush(String frame);
+  }
+
+  // Per-frame command buffer: paints are appended, then written out once
+  public static class FrameBuffer {
+    private final StringBuilder commands = new StringBuilder(256);
+
+    void add(String command) {
+      commands.append(command).append('\n');
+    }
+
+    void flushTo(PaintSink sink) {
+      sink.flush(commands.toString());
+      commands.setLength(0); // keep the capacity for the next frame
+    }
+  }
+
+  // Cross-platform renderer. Stateless families share one widget of each
+  // kind; other families have their widgets pooled between frames.
   public static class Renderer {
     private final UiFactory factory;
+    private final PooledUiFactory pool; // null when widgets are shared
+    private final PaintSink sink;
+    private final FrameBuffer frame = new FrameBuffer();
 
     public Renderer(UiFactory factory) {
-      this.factory = factory;
+      this(factory, System.out::print);
+    }
+
+    public Renderer(UiFactory factory, PaintSink sink) {
+      this.pool = factory instanceof StatelessWidgets ? null : new PooledUiFactory(factory);
+      this.factory = pool == null ? new CachingUiFactory(factory) : pool;
+      this.sink = sink;
     }
 
     public void render() {
       Button button = factory.createButton();
       Checkbox checkbox = factory.createCheckbox();
-      button.paint();
-      checkbox.paint();
+      button.paint(frame);
+      checkbox.paint(frame);
+      frame.flushTo(sink);
+      if (pool != null) {
+        pool.release(button);
+        pool.release(checkbox);
+      }
+    }
+  }
+
+  // A stateful family: each button counts how often it was painted since reset
+  public static class CountingFactory implements UiFactory {
+    @Override
+    public Button createButton() {
+      return new CountingButton();
+    }
+    @Override
+    public Checkbox createCheckbox() {
+      return new MacCheckbox();
+    }
+  }
+
+  public static class CountingButton implements Button, Resettable {
+    private int paints;
+
+    @Override
+    public String paintCommand() {
+      return "Rendering a counting button (paint " + (++paints) + ").";
+    }
+
+    @Override
+    public void reset() {
+      paints = 0;
     }
   }
 
@@ -90,7 +229,36 @@ public class AbstractFactoryPattern {
     System.out.println("\nUsing MacOS family:");
     Renderer macRenderer = new Renderer(new MacFactory());
     macRenderer.render();
+
+    System.out.println("\nUsing a stateful family (pooled, reset between frames):");
+    Renderer countingRenderer = new Renderer(new CountingFactory());
+    countingRenderer.render();
+    countingRenderer.render();
+
+    // Rough frames per second, both writing to a discarding stream
+    PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+    UiFactory family = new WindowsFactory();
+    long budget = 300_000_000L; // 300 ms per variant
+
+    long frames = 0;
+    long t0 = System.nanoTime();
+    while (System.nanoTime() - t0 < budget) {
+      // old path: new widgets every frame, one println per paint
+      nowhere.println(family.createButton().paintCommand());
+      nowhere.println(family.createCheckbox().paintCommand());
+      frames++;
+    }
+    double before = frames * 1e9 / (System.nanoTime() - t0);
+
+    Renderer buffered = new Renderer(family, nowhere::append);
+    frames = 0;
+    t0 = System.nanoTime();
+    while (System.nanoTime() - t0 < budget) {
+      buffered.render();
+      frames++;
+    }
+    double after = frames * 1e9 / (System.nanoTime() - t0);
+    System.out.printf("%nfps: per-paint output %.0f, cached widgets + frame buffer %.0f%n", before, after);
   }
 
 }
-
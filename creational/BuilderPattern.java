@@ -1,5 +1,11 @@
 package creational;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class BuilderPattern {
 
   public static class Person {
@@ -8,9 +14,13 @@ public class BuilderPattern {
     private final String email; // optional
 
     private Person(Builder b) {
-      this.firstName = b.firstName;
-      this.lastName = b.lastName;
-      this.email = b.email;
+      this(b.firstName, b.lastName, b.email);
+    }
+
+    private Person(String firstName, String lastName, String email) {
+      this.firstName = firstName;
+      this.lastName = lastName;
+      this.email = email;
     }
 
     // getters...
@@ -48,10 +58,120 @@ public class BuilderPattern {
         }
         return new Person(this);
       }
+
+      // Clears all fields so one builder can be reused for the next record
+      // instead of allocating a new one; build() copies the values out
+      public Builder reset() {
+        firstName = null;
+        lastName = null;
+        email = null;
+        return this;
+      }
+    }
+  }
+
+  // Canonical instance per distinct string value, so repeated names share one
+  // String. Can be shared by several batches; not thread-safe.
+  public static class StringPool {
+    private final Map<String, String> pool = new HashMap<>();
+
+    public String intern(String s) {
+      if (s == null) return null;
+      String existing = pool.putIfAbsent(s, s);
+      return existing != null ? existing : s;
+    }
+
+    public int size() {
+      return pool.size();
+    }
+  }
+
+  // Columnar bulk builder: records are appended into parallel arrays and
+  // names go through the StringPool. build() validates every row in one pass
+  // before creating anything, then materialises all Persons. clear() keeps
+  // the arrays for the next batch.
+  public static class PersonBatch {
+    private final StringPool pool;
+    private String[] firstNames;
+    private String[] lastNames;
+    private String[] emails;
+    private int size;
+
+    public PersonBatch(int expected, StringPool pool) {
+      this.pool = pool;
+      int cap = Math.max(expected, 16);
+      firstNames = new String[cap];
+      lastNames = new String[cap];
+      emails = new String[cap];
+    }
+
+    public PersonBatch add(String firstName, String lastName, String email) {
+      if (size == firstNames.length) {
+        int cap = size * 2;
+        firstNames = Arrays.copyOf(firstNames, cap);
+        lastNames = Arrays.copyOf(lastNames, cap);
+        emails = Arrays.copyOf(emails, cap);
+      }
+      firstNames[size] = pool.intern(firstName);
+      lastNames[size] = pool.intern(lastName);
+      emails[size] = email; // emails are mostly unique, not worth pooling
+      size++;
+      return this;
+    }
+
+    public List<Person> build() {
+      for (int i = 0; i < size; i++) {
+        if (firstNames[i] == null || lastNames[i] == null) {
+          throw new IllegalStateException("name required (row " + i + ")");
+        }
+      }
+      List<Person> out = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) out.add(new Person(firstNames[i], lastNames[i], emails[i]));
+      return out;
+    }
+
+    public void clear() {
+      Arrays.fill(firstNames, 0, size, null);
+      Arrays.fill(lastNames, 0, size, null);
+      Arrays.fill(emails, 0, size, null);
+      size = 0;
+    }
+
+    public int size() {
+      return size;
     }
   }
 
   public static void main(String[] args) {
+    // Bulk ingest: names parsed from input are fresh String objects every time
+    String[] first = { "Ada", "Alan", "Grace", "Linus", "Barbara" };
+    String[] last = { "Lovelace", "Turing", "Hopper", "Torvalds", "Liskov" };
+    int n = 500_000;
+
+    long before = usedHeap();
+    List<Person> plain = new ArrayList<>(n);
+    Person.Builder reused = new Person.Builder();
+    for (int i = 0; i < n; i++) {
+      plain.add(reused.reset()
+          .firstName(new String(first[i % first.length]))
+          .lastName(new String(last[i % last.length]))
+          .build());
+    }
+    long plainBytes = usedHeap() - before;
+
+    before = usedHeap();
+    StringPool pool = new StringPool();
+    PersonBatch batch = new PersonBatch(n, pool);
+    for (int i = 0; i < n; i++) {
+      batch.add(new String(first[i % first.length]), new String(last[i % last.length]), null);
+    }
+    List<Person> pooled = batch.build();
+    batch.clear();
+    long pooledBytes = usedHeap() - before;
+    System.out.printf("%d persons: reused builder ~%d KiB, pooled batch ~%d KiB (%d distinct names)%n",
+        plain.size(), plainBytes / 1024, pooledBytes / 1024, pool.size());
+    System.out.println("names shared: " + (pooled.get(0).getFirstName() == pooled.get(5).getFirstName()));
+
     Person person1 = new Person.Builder()
         .firstName("Ada")
         .lastName("Lovelace")
@@ -65,6 +185,12 @@ public class BuilderPattern {
     System.out.println("Succesfully created person 2");
   }
 
+  private static long usedHeap() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) System.gc();
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
 }
 
 
@@ -1,43 +1,409 @@
 package creational;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public class FactoryPattern {
 
   // Product: simple data source that returns next record or null if EOF
-  interface DataSource {
+  interface DataSource extends AutoCloseable {
     String read() throws Exception;
+
+    // Appends up to max records to sink and returns how many were added;
+    // 0 means EOF (for max > 0). Sources should override this with a bulk read.
+    default int readBatch(int max, List<String> sink) throws Exception {
+      int n = 0;
+      String r;
+      while (n < max && (r = read()) != null) {
+        sink.add(r);
+        n++;
+      }
+      return n;
+    }
+
+    // Sequential stream over the remaining records, read in batches.
+    // Read failures surface as unchecked exceptions from the stream.
+    default Stream<String> stream() {
+      return StreamSupport.stream(new BatchSpliterator(this, BatchSpliterator.BATCH), false)
+          .onClose(() -> {
+            try {
+              close();
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    }
+
+    // Releases files, channels or threads held by the source. Safe to call
+    // more than once and after EOF. Most sources hold nothing.
+    @Override
+    default void close() throws IOException {}
+  }
+
+  // Pulls records in batches; trySplit hands out whole batches as arrays,
+  // so parallel streams can fan the work out (same idea as IteratorSpliterator)
+  static final class BatchSpliterator implements Spliterator<String> {
+    static final int BATCH = 1024;
+
+    private final DataSource source;
+    private final int batch;
+    private final ArrayList<String> buffer = new ArrayList<>();
+    private int pos;
+    private boolean eof;
+
+    BatchSpliterator(DataSource source, int batch) {
+      this.source = source;
+      this.batch = batch;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+      if (pos == buffer.size() && !fill()) return false;
+      action.accept(buffer.get(pos++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+      do {
+        while (pos < buffer.size()) action.accept(buffer.get(pos++));
+      } while (fill());
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+      if (pos == buffer.size() && !fill()) return null;
+      Object[] chunk = buffer.subList(pos, buffer.size()).toArray();
+      pos = buffer.size();
+      return Spliterators.spliterator(chunk, characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+
+    private boolean fill() {
+      if (eof) return false;
+      buffer.clear();
+      pos = 0;
+      try {
+        if (source.readBatch(batch, buffer) == 0) eof = true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException("Data source read failed", e);
+      }
+      return !eof;
+    }
   }
 
   // Minimal concrete sources
+  // Reads the file at cfg "path" line by line through a memory-mapped window.
+  // Without a path it serves a few sample lines.
   public static class FileDataSource implements DataSource {
-    private final String[] lines = { "file-1", "file-2", "file-3" };
+    private static final String[] SAMPLE = { "file-1", "file-2", "file-3" };
+    private final MappedLines mapped;
     private int i = 0;
-    FileDataSource(Map<String, String> cfg) {}
+
+    FileDataSource(Map<String, String> cfg) {
+      String path = cfg.get("path");
+      this.mapped = path == null ? null : MappedLines.open(Path.of(path));
+    }
+
+    private FileDataSource(MappedLines mapped) {
+      this.mapped = mapped;
+    }
+
+    // n sources over byte ranges of the file, each starting right after a '\n'
+    // (or at 0) so no line is split; empty ranges are dropped
+    static List<DataSource> partitions(Map<String, String> cfg, int n) {
+      String path = cfg.get("path");
+      if (path == null) return List.of(new FileDataSource(cfg));
+      List<DataSource> parts = new ArrayList<>(n);
+      try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+        long size = ch.size();
+        long[] cuts = new long[n + 1];
+        cuts[n] = size;
+        for (int k = 1; k < n; k++) {
+          cuts[k] = Math.max(cuts[k - 1], lineStartAtOrAfter(ch, size * k / n, size));
+        }
+        for (int k = 0; k < n; k++) {
+          if (cuts[k] < cuts[k + 1]) {
+            FileChannel own = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+            parts.add(new FileDataSource(new MappedLines(own, cuts[k], cuts[k + 1])));
+          }
+        }
+        return parts;
+      } catch (IOException | RuntimeException e) {
+        // don't leak the channels opened before the failure
+        for (DataSource part : parts) {
+          try {
+            part.close();
+          } catch (IOException suppressed) {
+            e.addSuppressed(suppressed);
+          }
+        }
+        throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+      }
+    }
+
+    private static long lineStartAtOrAfter(FileChannel ch, long pos, long size) throws IOException {
+      if (pos == 0) return 0;
+      ByteBuffer buf = ByteBuffer.allocate(8192);
+      long p = pos - 1; // a line starts at pos if the byte before it is '\n'
+      while (p < size) {
+        buf.clear();
+        int n = ch.read(buf, p);
+        if (n <= 0) break;
+        for (int k = 0; k < n; k++) {
+          if (buf.get(k) == '\n') return p + k + 1;
+        }
+        p += n;
+      }
+      return size;
+    }
+
     @Override
-    public String read() {
-      return (i < lines.length) ? lines[i++] : null;
+    public String read() throws IOException {
+      if (mapped != null) return mapped.nextLine();
+      return (i < SAMPLE.length) ? SAMPLE[i++] : null;
+    }
+
+    // Zero-copy access: the next line as a read-only view into the mapping
+    // (valid until the source is read again), or null at EOF
+    public ByteBuffer readBuffer() throws IOException {
+      if (mapped != null) return mapped.nextLineBuffer();
+      String line = read();
+      return line == null ? null : ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (mapped != null) mapped.close();
+    }
+
+    @Override
+    public int readBatch(int max, List<String> sink) throws IOException {
+      if (mapped != null) {
+        int n = 0;
+        String line;
+        while (n < max && (line = mapped.nextLine()) != null) {
+          sink.add(line);
+          n++;
+        }
+        return n;
+      }
+      int n = Math.min(max, SAMPLE.length - i);
+      sink.addAll(Arrays.asList(SAMPLE).subList(i, i + n));
+      i += n;
+      return n;
     }
   }
 
+  // Line reader over a byte range of a file. The range is mapped in windows of
+  // up to WINDOW bytes, so heap use does not depend on file size and multi-GB
+  // files need no single huge mapping. Lines are found by scanning the mapped
+  // bytes for '\n' (a trailing '\r' is dropped) and decoded as UTF-8 only when
+  // asked for a String. The channel is closed once the range is exhausted, or
+  // by close(). A line that does not fit one mapping (2 GiB) is an IOException.
+  static final class MappedLines implements AutoCloseable {
+    private static final int WINDOW = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long end;
+    private MappedByteBuffer window;
+    private long windowStart; // file offset of window position 0
+    private long next; // file offset of the next unread byte
+
+    MappedLines(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.next = start;
+      this.end = end;
+    }
+
+    static MappedLines open(Path path) {
+      FileChannel ch = null;
+      try {
+        ch = FileChannel.open(path, StandardOpenOption.READ);
+        return new MappedLines(ch, 0, ch.size());
+      } catch (IOException e) {
+        if (ch != null) {
+          try {
+            ch.close();
+          } catch (IOException suppressed) {
+            e.addSuppressed(suppressed);
+          }
+        }
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      window = null;
+      channel.close();
+    }
+
+    String nextLine() throws IOException {
+      ByteBuffer line = nextLineBuffer();
+      return line == null ? null : StandardCharsets.UTF_8.decode(line).toString();
+    }
+
+    ByteBuffer nextLineBuffer() throws IOException {
+      if (next >= end) {
+        if (channel.isOpen()) channel.close();
+        return null;
+      }
+      int from = ensureMapped(next);
+      int nl = indexOfNewline(from);
+      while (nl < 0 && windowStart + window.limit() < end) {
+        // line runs past the window: remap from the line start, growing if needed
+        int seen = window.limit() - from;
+        long want = Math.min((long) Integer.MAX_VALUE, Math.max(WINDOW, 2L * seen));
+        if (want <= seen) {
+          throw new IOException("Line at offset " + next + " is longer than " + seen + " bytes");
+        }
+        from = map(next, want);
+        nl = indexOfNewline(from);
+      }
+      int stop = nl < 0 ? window.limit() : nl;
+      next = windowStart + (nl < 0 ? stop : nl + 1);
+      if (stop > from && window.get(stop - 1) == '\r') stop--;
+      return window.slice(from, stop - from).asReadOnlyBuffer();
+    }
+
+    private int indexOfNewline(int from) {
+      for (int p = from, lim = window.limit(); p < lim; p++) {
+        if (window.get(p) == '\n') return p;
+      }
+      return -1;
+    }
+
+    // Makes sure offset is inside the window, mapping a new WINDOW there when
+    // needed; returns offset's position within the window
+    private int ensureMapped(long offset) throws IOException {
+      boolean inside = window != null && offset >= windowStart && offset < windowStart + window.limit();
+      return inside ? (int) (offset - windowStart) : map(offset, WINDOW);
+    }
+
+    // Maps [offset, offset + size), clipped to the range; returns 0
+    private int map(long offset, long size) throws IOException {
+      window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(size, end - offset));
+      windowStart = offset;
+      return 0;
+    }
+  }
+
+  // Stand-in topic of RECORDS records spread round-robin over partitions
   public static class KafkaDataSource implements DataSource {
-    private int i = 0;
-    KafkaDataSource(Map<String, String> cfg) {}
+    private static final int RECORDS = 3;
+    private final int partitions;
+    private int next; // next record number in this partition
+
+    KafkaDataSource(Map<String, String> cfg) {
+      this(cfg, 0, 1);
+    }
+
+    KafkaDataSource(Map<String, String> cfg, int partition, int partitions) {
+      this.partitions = partitions;
+      this.next = partition + 1;
+    }
+
+    static List<DataSource> partitions(Map<String, String> cfg, int n) {
+      List<DataSource> parts = new ArrayList<>(n);
+      for (int p = 0; p < n; p++) parts.add(new KafkaDataSource(cfg, p, n));
+      return parts;
+    }
+
     @Override
     public String read() {
-      return (++i <= 3) ? "kafka-" + i : null;
+      if (next > RECORDS) return null;
+      String r = "kafka-" + next;
+      next += partitions;
+      return r;
+    }
+
+    // One "poll" returns up to max records
+    @Override
+    public int readBatch(int max, List<String> sink) {
+      int n = 0;
+      for (; n < max && next <= RECORDS; n++, next += partitions) sink.add("kafka-" + next);
+      return n;
     }
   }
 
+  // Stand-in table with keys 1..ROWS; a partition covers the key range [from, to]
   public static class JdbcDataSource implements DataSource {
-    private int i = 0;
-    JdbcDataSource(Map<String, String> cfg) {}
+    private static final int ROWS = 2;
+    private final int to;
+    private int i;
+
+    JdbcDataSource(Map<String, String> cfg) {
+      this(cfg, 1, ROWS);
+    }
+
+    JdbcDataSource(Map<String, String> cfg, int from, int to) {
+      this.i = from - 1;
+      this.to = to;
+    }
+
+    static List<DataSource> partitions(Map<String, String> cfg, int n) {
+      List<DataSource> parts = new ArrayList<>(n);
+      for (int p = 0; p < n; p++) {
+        int from = 1 + (int) ((long) ROWS * p / n);
+        int to = (int) ((long) ROWS * (p + 1) / n);
+        if (from <= to) parts.add(new JdbcDataSource(cfg, from, to));
+      }
+      return parts;
+    }
+
     @Override
     public String read() {
-      return (++i <= 2) ? "row-" + i : null;
+      return (i < to) ? "row-" + (++i) : null;
+    }
+
+    // One "fetch" of up to max rows, like a JDBC fetch size
+    @Override
+    public int readBatch(int max, List<String> sink) {
+      int n = Math.max(0, Math.min(max, to - i));
+      for (int k = 0; k < n; k++) sink.add("row-" + (++i));
+      return n;
     }
   }
 
@@ -45,18 +411,37 @@ public class FactoryPattern {
   public static class DataSourceFactory {
     private final Map<String, Function<Map<String,String>, DataSource>> registry = 
         new ConcurrentHashMap<>();
+    private final Map<String, BiFunction<Map<String,String>, Integer, List<DataSource>>> partitioners =
+        new ConcurrentHashMap<>();
 
     DataSourceFactory() {
       // register built-in creators
       register("file", cfg -> new FileDataSource(cfg));
       register("kafka", cfg -> new KafkaDataSource(cfg));
       register("jdbc", cfg -> new JdbcDataSource(cfg));
+
+      registerPartitioner("file", FileDataSource::partitions);
+      registerPartitioner("kafka", KafkaDataSource::partitions);
+      registerPartitioner("jdbc", JdbcDataSource::partitions);
     }
 
     public void register(String type, Function<Map<String,String>, DataSource> creator) {
       registry.put(type.toLowerCase(), creator);
     }
 
+    public void registerPartitioner(String type,
+        BiFunction<Map<String,String>, Integer, List<DataSource>> partitioner) {
+      partitioners.put(type.toLowerCase(), partitioner);
+    }
+
+    // Up to n disjoint sources that together read one logical source.
+    // Types without a partitioner come back as a single source.
+    public List<DataSource> createPartitioned(String type, Map<String,String> cfg, int n) {
+      if (n <= 0) throw new IllegalArgumentException("Partition count must be > 0: " + n);
+      BiFunction<Map<String,String>, Integer, List<DataSource>> p = partitioners.get(type.toLowerCase());
+      return p == null ? List.of(create(type, cfg)) : p.apply(cfg, n);
+    }
+
     public DataSource create(String type, Map<String,String> cfg) {
       Function<Map<String,String>, DataSource> c = registry.get(type.toLowerCase());
       if (c == null) throw new IllegalArgumentException("Unknown type: " + type);
@@ -64,14 +449,179 @@ public class FactoryPattern {
     }
   }
 
+  // Decorator that prefetches records from another source on a background
+  // thread into a bounded buffer of `depth` records, so the source's I/O
+  // overlaps with the consumer's processing. EOF and read failures are passed
+  // through in order: after the last buffered record, read() returns null or
+  // rethrows the source's exception (or error). The end marker is always
+  // published, so read() cannot hang once the prefetch thread has stopped.
+  // close() stops the prefetch thread early and closes the wrapped source.
+  public static class ReadAheadDataSource implements DataSource {
+    static final String DEPTH_KEY = "readahead.depth";
+    static final int DEFAULT_DEPTH = 256;
+    static final long CLOSE_WAIT_MILLIS = 2000;
+
+    // Marks the end of the stream in the buffer (compared by identity)
+    private static final String END = new String("<end>");
+
+    private final DataSource base;
+    private final BlockingQueue<String> buffer;
+    private final Thread prefetcher;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private boolean ended;
+
+    public ReadAheadDataSource(DataSource base, int depth) {
+      if (depth <= 0) throw new IllegalArgumentException("depth must be > 0");
+      this.base = base;
+      this.buffer = new ArrayBlockingQueue<>(depth);
+      this.prefetcher = new Thread(() -> prefetch(base), "read-ahead");
+      prefetcher.setDaemon(true);
+      prefetcher.start();
+    }
+
+    static int depth(Map<String, String> cfg) {
+      return Integer.parseInt(cfg.getOrDefault(DEPTH_KEY, String.valueOf(DEFAULT_DEPTH)));
+    }
+
+    // Hands over each record as soon as it is read, so the consumer never
+    // waits for a whole batch to fill
+    private void prefetch(DataSource base) {
+      try {
+        String r;
+        while ((r = base.read()) != null) buffer.put(r);
+      } catch (InterruptedException e) {
+        // closed by the consumer
+      } catch (Throwable e) {
+        if (!closed) failure = e;
+      } finally {
+        publishEnd();
+      }
+    }
+
+    // Once closed nobody wants the buffered records, so they make room for END
+    private void publishEnd() {
+      if (!closed) {
+        try {
+          buffer.put(END);
+          return;
+        } catch (InterruptedException e) {
+          // closed while the consumer was not taking
+        }
+      }
+      buffer.clear();
+      buffer.offer(END);
+    }
+
+    @Override
+    public String read() throws Exception {
+      if (ended) return end();
+      String r = buffer.take();
+      return r == END ? end() : r;
+    }
+
+    @Override
+    public int readBatch(int max, List<String> sink) throws Exception {
+      if (ended || max <= 0) return ended ? endBatch() : 0;
+      String first = buffer.take();
+      if (first == END) return endBatch();
+      sink.add(first);
+      int n = 1;
+      String r;
+      while (n < max && (r = buffer.poll()) != null) {
+        if (r == END) {
+          ended = true; // report EOF (or the failure) on the next call
+          break;
+        }
+        sink.add(r);
+        n++;
+      }
+      return n;
+    }
+
+    // Gives the prefetch thread a bounded time to stop, then closes the source
+    // under it anyway: a read that ignores interrupts (socket, JDBC) would
+    // otherwise hang close() forever, and closing the source usually unblocks it.
+    // isPrefetching() tells whether the thread was still running at that point.
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      prefetcher.interrupt();
+      try {
+        prefetcher.join(CLOSE_WAIT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        base.close();
+      }
+    }
+
+    public boolean isPrefetching() {
+      return prefetcher.isAlive();
+    }
+
+    private String end() throws Exception {
+      ended = true;
+      if (failure instanceof Error) throw (Error) failure;
+      if (failure != null) throw (Exception) failure;
+      return null;
+    }
+
+    private int endBatch() throws Exception {
+      end();
+      return 0;
+    }
+  }
+
+  // Consumes partitions concurrently, one task per partition, reading in
+  // batches. Returns the number of records consumed. The consumer must be
+  // thread-safe.
+  public static class ParallelDriver {
+    private static final int BATCH = 1024;
+
+    private final ExecutorService pool;
+
+    public ParallelDriver(ExecutorService pool) {
+      this.pool = pool;
+    }
+
+    public long consume(List<DataSource> partitions, Consumer<String> consumer) throws Exception {
+      List<Future<Long>> results = new ArrayList<>();
+      for (DataSource part : partitions) {
+        results.add(pool.submit(() -> {
+          List<String> batch = new ArrayList<>(BATCH);
+          long count = 0;
+          while (part.readBatch(BATCH, batch) > 0) {
+            for (String r : batch) consumer.accept(r);
+            count += batch.size();
+            batch.clear();
+          }
+          return count;
+        }));
+      }
+      long total = 0;
+      try {
+        for (Future<Long> f : results) total += f.get();
+      } catch (ExecutionException e) {
+        results.forEach(f -> f.cancel(true));
+        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+      }
+      return total;
+    }
+  }
+
   public static void main(String[] args) throws Exception {
     DataSourceFactory factory = new DataSourceFactory();
 
     // create and read a file source
-    DataSource f = factory.create("file", Map.of("path","/tmp/x"));
+    Path tmp = Files.createTempFile("datasource", ".txt");
+    Files.writeString(tmp, "line-1\nline-2\r\nline-3");
     System.out.println("File source:");
     String r;
-    while ((r = f.read()) != null) System.out.println("  " + r);
+    try (DataSource f = factory.create("file", Map.of("path", tmp.toString()))) {
+      while ((r = f.read()) != null) System.out.println("  " + r);
+    }
+    Files.delete(tmp);
 
     // create and read kafka
     DataSource k = factory.create("kafka", Map.of("topic","t"));
@@ -91,6 +641,66 @@ public class FactoryPattern {
     DataSource uc = factory.create("uppercase-file", Map.of());
     System.out.println("Uppercase-file source:");
     while ((r = uc.read()) != null) System.out.println("  " + r);
+
+    // runtime registration: read-ahead over a slow source (1 ms per record)
+    factory.register("slow", cfg -> new DataSource() {
+      private int i = 0;
+      @Override
+      public String read() throws Exception {
+        Thread.sleep(1);
+        return (++i <= 200) ? "slow-" + i : null;
+      }
+    });
+    factory.register("readahead-slow",
+        cfg -> new ReadAheadDataSource(factory.create("slow", cfg), ReadAheadDataSource.depth(cfg)));
+    for (String type : new String[] { "slow", "readahead-slow" }) {
+      DataSource src = factory.create(type, Map.of(ReadAheadDataSource.DEPTH_KEY, "64"));
+      long t0 = System.nanoTime();
+      int n = 0;
+      while (src.read() != null) {
+        Thread.sleep(1); // 1 ms of processing per record
+        n++;
+      }
+      System.out.printf("%s: %d records in %d ms%n", type, n, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    // Bulk reads and streams work on any source from the factory
+    List<String> batch = new ArrayList<>();
+    factory.create("kafka", Map.of("topic","t")).readBatch(10, batch);
+    System.out.println("Kafka batch: " + batch);
+    System.out.println("JDBC stream: " + factory.create("jdbc", Map.of()).stream()
+        .map(String::toUpperCase).collect(Collectors.joining(", ")));
+
+    // Partitioned consumption of one larger file
+    Path big = Files.createTempFile("datasource-big", ".txt");
+    try {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 2_000_000; i++) sb.append("record-").append(i).append('\n');
+      Files.writeString(big, sb);
+      int cores = Runtime.getRuntime().availableProcessors();
+      ExecutorService pool = Executors.newFixedThreadPool(cores);
+      try {
+        ParallelDriver driver = new ParallelDriver(pool);
+        for (int n : new int[] { 1, Math.max(4, cores) }) {
+          LongAdder chars = new LongAdder();
+          long t0 = System.nanoTime();
+          List<DataSource> parts = factory.createPartitioned("file", Map.of("path", big.toString()), n);
+          long records;
+          try {
+            records = driver.consume(parts, s -> chars.add(s.length()));
+          } finally {
+            for (DataSource part : parts) part.close();
+          }
+          System.out.printf("%d partition(s): %d records in %d ms%n", n, records, (System.nanoTime() - t0) / 1_000_000);
+        }
+        System.out.println("Kafka partitions: " + driver.consume(
+            factory.createPartitioned("kafka", Map.of("topic","t"), 2), s -> {}) + " records");
+      } finally {
+        pool.shutdown();
+      }
+    } finally {
+      Files.delete(big);
+    }
   }
 
 }
@@ -1,24 +1,142 @@
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
 public class AdapterPattern {
 
   // Target interface expected by client
   public interface FileStorage {
     void save(String file);  
+
+    // Streaming overloads. The defaults read everything into memory and fall
+    // back to save(String); adapters that can stream should override them.
+    default void save(InputStream in) throws IOException {
+      save(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    default void save(ReadableByteChannel channel) throws IOException {
+      save(Channels.newInputStream(channel));
+    }
+
+    default void save(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        save(channel);
+      }
+    }
+
+    // Several small files in one go; adapters may turn this into one round trip
+    default void saveAll(List<String> files) {
+      for (String f : files) save(f);
+    }
   }
 
-  // Adaptee: existing/third-party class we cannot change
+  // Storage whose stream and path overloads keep the bytes exactly as given,
+  // instead of decoding them as text like the FileStorage defaults do
+  public interface BinaryFileStorage extends FileStorage {}
+
+  // Adaptee: existing/third-party class we cannot change. Only uploadFile is
+  // used by the basic adapter; the batch and multipart calls below stand in for
+  // the equivalent API of the real client library, which is assumed to exist.
   public static class GoogleCloudStorageLibrary {
     void uploadFile(String projectName, String file) {
       System.out.printf("File upload to GCS, project: %s, file content: %s", projectName, file);
     }
+
+    // Batch request: many small objects in one round trip
+    void uploadFiles(String projectName, List<String> files) {
+      System.out.printf("Batch upload to GCS, project: %s, %d files%n", projectName, files.size());
+    }
+
+    // Multipart upload: parts may arrive in any order and in parallel
+    String startMultipartUpload(String projectName) {
+      return UUID.randomUUID().toString();
+    }
+
+    void uploadPart(String uploadId, int partNumber, ByteBuffer data) {
+      System.out.printf("Part %d of upload %s: %d bytes%n", partNumber, uploadId, data.remaining());
+    }
+
+    void completeMultipartUpload(String uploadId, int parts) {
+      System.out.printf("Upload %s complete with %d parts%n", uploadId, parts);
+    }
+
+    void abortMultipartUpload(String uploadId) {
+      System.out.printf("Upload %s aborted%n", uploadId);
+    }
   }
 
   // Adapter: implements the Target and delegates to the Adaptee
-  public static class GcsFileStorage implements FileStorage {
+  // Streams are uploaded as parts of chunkSize bytes, up to parallelism parts
+  // at a time. Buffers come from a fixed pool, so memory stays at
+  // chunkSize x parallelism whatever the payload size. close() stops the
+  // upload threads and drops the buffers; streaming saves fail after that.
+  public static class GcsFileStorage implements BinaryFileStorage, AutoCloseable {
     private static final String BOOTCAMP_PROJECT = "bootcamp";
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int DEFAULT_PARALLELISM = 4;
+
     private final GoogleCloudStorageLibrary storageLibrary;
+    private final int chunkSize;
+    private final ExecutorService uploaders;
+    private final int parallelism;
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final AtomicInteger allocated = new AtomicInteger();
 
     public GcsFileStorage(GoogleCloudStorageLibrary storageLibrary) {
+      this(storageLibrary, DEFAULT_CHUNK_SIZE, DEFAULT_PARALLELISM);
+    }
+
+    public GcsFileStorage(GoogleCloudStorageLibrary storageLibrary, int chunkSize, int parallelism) {
+      if (chunkSize <= 0 || parallelism <= 0) throw new IllegalArgumentException("chunkSize and parallelism must be > 0");
       this.storageLibrary = storageLibrary;
+      this.chunkSize = chunkSize;
+      this.parallelism = parallelism;
+      this.uploaders = Executors.newFixedThreadPool(parallelism, r -> {
+        Thread t = new Thread(r, "gcs-part-upload");
+        t.setDaemon(true);
+        return t;
+      });
+      this.buffers = new ArrayBlockingQueue<>(parallelism);
     }
 
     @Override
@@ -26,16 +144,563 @@ public class AdapterPattern {
       // Here we convert file format to match library requirement 
       storageLibrary.uploadFile(BOOTCAMP_PROJECT, file);
     }
+
+    @Override
+    public void saveAll(List<String> files) {
+      storageLibrary.uploadFiles(BOOTCAMP_PROJECT, files);
+    }
+
+    @Override
+    public void save(InputStream in) throws IOException {
+      save(Channels.newChannel(in));
+    }
+
+    @Override
+    public void save(ReadableByteChannel channel) throws IOException {
+      upload((buf, part) -> {
+        while (buf.hasRemaining() && channel.read(buf) >= 0) {
+          // keep filling until the chunk is full or the channel is drained
+        }
+      }, -1);
+    }
+
+    // Positional reads: chunks are read independently, on the uploader threads
+    @Override
+    public void save(Path path) throws IOException {
+      try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+        long size = fc.size();
+        upload((buf, part) -> {
+          long pos = (long) part * chunkSize;
+          while (buf.hasRemaining() && pos + buf.position() < size) {
+            if (fc.read(buf, pos + buf.position()) < 0) break;
+          }
+        }, size);
+      }
+    }
+
+    @Override
+    public void close() {
+      uploaders.shutdown();
+      buffers.clear();
+    }
+
+    private interface ChunkReader {
+      void fill(ByteBuffer buf, int part) throws IOException;
+    }
+
+    // knownSize < 0: sequential source, read on the caller thread until empty
+    private void upload(ChunkReader reader, long knownSize) throws IOException {
+      if (uploaders.isShutdown()) throw new IllegalStateException("Storage is closed");
+      String uploadId = storageLibrary.startMultipartUpload(BOOTCAMP_PROJECT);
+      List<CompletableFuture<Void>> parts = new ArrayList<>();
+      ByteBuffer pending = null; // borrowed, not yet owned by a submitted part
+      try {
+        int part = 0;
+        while (knownSize < 0 || (long) part * chunkSize < Math.max(knownSize, 1)) {
+          ByteBuffer buf = borrow();
+          pending = buf;
+          int partNumber = part++;
+          if (knownSize < 0) {
+            reader.fill(buf, partNumber);
+            if (buf.position() == 0 && partNumber > 0) {
+              part--;
+              break;
+            }
+            parts.add(CompletableFuture.runAsync(() -> sendPart(uploadId, partNumber, buf), uploaders));
+            pending = null;
+            if (buf.hasRemaining()) break; // short chunk: source is drained
+          } else {
+            parts.add(CompletableFuture.runAsync(() -> {
+              try {
+                reader.fill(buf, partNumber);
+              } catch (IOException | RuntimeException e) {
+                buffers.add(buf);
+                throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+              }
+              sendPart(uploadId, partNumber, buf);
+            }, uploaders));
+            pending = null;
+          }
+        }
+        if (pending != null) {
+          buffers.add(pending); // empty trailing chunk
+          pending = null;
+        }
+        CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).join();
+        storageLibrary.completeMultipartUpload(uploadId, part);
+      } catch (IOException | RuntimeException e) {
+        if (pending != null) buffers.add(pending);
+        CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).exceptionally(x -> null).join();
+        storageLibrary.abortMultipartUpload(uploadId);
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+        if (cause instanceof IOException) throw (IOException) cause;
+        throw e;
+      }
+    }
+
+    private void sendPart(String uploadId, int partNumber, ByteBuffer buf) {
+      try {
+        buf.flip();
+        storageLibrary.uploadPart(uploadId, partNumber, buf);
+      } finally {
+        buffers.add(buf);
+      }
+    }
+
+    // Blocks while all buffers are in flight, which bounds memory
+    private ByteBuffer borrow() throws IOException {
+      ByteBuffer buf = buffers.poll();
+      if (buf == null && allocated.getAndUpdate(n -> n < parallelism ? n + 1 : n) < parallelism) {
+        return ByteBuffer.allocateDirect(chunkSize);
+      }
+      try {
+        if (buf == null) buf = buffers.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted waiting for an upload buffer", e);
+      }
+      buf.clear();
+      return buf;
+    }
+  }
+
+  // Write-behind storage: save() only enqueues into a bounded buffer and
+  // returns; background workers drain it in batches of up to batchSize and hand
+  // each batch to delegate.saveAll. When the buffer is full, save() blocks
+  // (backpressure). flush() waits until everything saved before the call has
+  // been uploaded and reports any upload failure since the last flush. Failed
+  // batches are not retried. close() flushes and stops the workers; saves
+  // racing with close() either make it into the final flush or are refused.
+  public static class WriteBehindFileStorage implements FileStorage, AutoCloseable {
+    private static final class Pending {
+      final long seq;
+      final String file;
+
+      Pending(long seq, String file) {
+        this.seq = seq;
+        this.file = file;
+      }
+    }
+
+    private final FileStorage delegate;
+    private final int batchSize;
+    private final BlockingQueue<Pending> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong nextSeq = new AtomicLong();
+
+    // Sequence numbers queued or uploading; guarded by this
+    private final TreeSet<Long> unfinished = new TreeSet<>();
+    private RuntimeException failure;
+    // Saves enqueue under the read lock, close() flips closed under the write
+    // lock, so no save can slip in after the final flush. Not "this": workers
+    // lock this while a save may be blocked on a full queue.
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    public WriteBehindFileStorage(FileStorage delegate, int capacity, int batchSize, int workerCount) {
+      if (capacity <= 0 || batchSize <= 0 || workerCount <= 0) {
+        throw new IllegalArgumentException("capacity, batchSize and workerCount must be > 0");
+      }
+      this.delegate = delegate;
+      this.batchSize = batchSize;
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      for (int i = 0; i < workerCount; i++) {
+        Thread t = new Thread(this::drain, "write-behind-" + i);
+        t.setDaemon(true);
+        t.start();
+        workers.add(t);
+      }
+    }
+
+    @Override
+    public void save(String file) {
+      closeLock.readLock().lock();
+      try {
+        if (closed) throw new IllegalStateException("Storage is closed");
+        long seq = nextSeq.incrementAndGet();
+        synchronized (this) {
+          unfinished.add(seq);
+        }
+        try {
+          queue.put(new Pending(seq, file));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          finished(List.of(seq), null);
+          throw new IllegalStateException("Interrupted while queueing save", e);
+        }
+      } finally {
+        closeLock.readLock().unlock();
+      }
+    }
+
+    public void flush() throws InterruptedException {
+      long upTo = nextSeq.get();
+      synchronized (this) {
+        while (!unfinished.isEmpty() && unfinished.first() <= upTo) wait();
+        if (failure != null) {
+          RuntimeException f = failure;
+          failure = null;
+          throw new IllegalStateException("Write-behind upload failed", f);
+        }
+      }
+    }
+
+    // If interrupted while flushing, stops without waiting and keeps the
+    // interrupt flag set; saves still queued are then lost
+    @Override
+    public void close() {
+      closeLock.writeLock().lock();
+      try {
+        if (closed) return;
+        closed = true;
+      } finally {
+        closeLock.writeLock().unlock();
+      }
+      try {
+        flush();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        workers.forEach(Thread::interrupt);
+      }
+    }
+
+    private void drain() {
+      List<Pending> batch = new ArrayList<>(batchSize);
+      List<String> files = new ArrayList<>(batchSize);
+      List<Long> seqs = new ArrayList<>(batchSize);
+      while (true) {
+        try {
+          batch.add(queue.take());
+        } catch (InterruptedException e) {
+          return;
+        }
+        queue.drainTo(batch, batchSize - 1);
+        for (Pending p : batch) {
+          files.add(p.file);
+          seqs.add(p.seq);
+        }
+        RuntimeException error = null;
+        try {
+          delegate.saveAll(files);
+        } catch (RuntimeException e) {
+          error = e;
+        }
+        finished(seqs, error);
+        batch.clear();
+        files.clear();
+        seqs.clear();
+      }
+    }
+
+    private synchronized void finished(List<Long> seqs, RuntimeException error) {
+      unfinished.removeAll(seqs);
+      if (error != null && failure == null) failure = error;
+      notifyAll();
+    }
+  }
+
+  // Content-addressed layer in front of another FileStorage. Each payload is
+  // hashed with SHA-256; if the hash is already in the local on-disk index
+  // (one hex hash per line) the upload is skipped. Concurrent saves of the same
+  // content share one upload: the others wait for it and only skip once it
+  // succeeded. A failed upload is not recorded, so it can be retried.
+  // Compression needs a BinaryFileStorage delegate. Every object is then
+  // stored with a one-byte encoding marker (IDENTITY or DEFLATE) in front;
+  // payloads above compressThreshold bytes are deflated (zlib) while they
+  // stream to the delegate. decode() reverses this. Without compression,
+  // objects go to the delegate unchanged.
+  // Streams are spooled to a temp file so they can be hashed before upload.
+  public static class DedupCompressingFileStorage implements FileStorage {
+    static final int IDENTITY = 0;
+    static final int DEFLATE = 1;
+
+    private final FileStorage delegate;
+    private final BinaryFileStorage binary; // null: no compression, no marker
+    private final int compressThreshold;
+    private final Path indexFile;
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    final LongAdder uploads = new LongAdder();
+    final LongAdder skipped = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesSent = new LongAdder();
+
+    // Deduplication only
+    public DedupCompressingFileStorage(FileStorage delegate, Path indexFile) throws IOException {
+      this(delegate, null, indexFile, Integer.MAX_VALUE);
+    }
+
+    public DedupCompressingFileStorage(BinaryFileStorage delegate, Path indexFile, int compressThreshold)
+        throws IOException {
+      this(delegate, delegate, indexFile, compressThreshold);
+    }
+
+    private DedupCompressingFileStorage(FileStorage delegate, BinaryFileStorage binary, Path indexFile,
+        int compressThreshold) throws IOException {
+      this.delegate = delegate;
+      this.binary = binary;
+      this.indexFile = indexFile;
+      this.compressThreshold = compressThreshold;
+      if (Files.exists(indexFile)) {
+        try (Stream<String> lines = Files.lines(indexFile)) {
+          lines.filter(l -> !l.isEmpty()).forEach(known::add);
+        }
+      }
+    }
+
+    // Reads back an object stored with an encoding marker
+    public static InputStream decode(InputStream stored) throws IOException {
+      int marker = stored.read();
+      if (marker == IDENTITY) return stored;
+      if (marker == DEFLATE) return new InflaterInputStream(stored);
+      throw new IOException("Unknown encoding marker: " + marker);
+    }
+
+    @Override
+    public void save(String file) {
+      byte[] bytes = file.getBytes(StandardCharsets.UTF_8);
+      String hash = HexFormat.of().formatHex(sha256().digest(bytes));
+      try {
+        store(hash, bytes.length, () -> {
+          if (binary != null) {
+            send(new ByteArrayInputStream(bytes), bytes.length);
+          } else {
+            delegate.save(file);
+            bytesSent.add(bytes.length);
+          }
+        });
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void save(InputStream in) throws IOException {
+      Path spool = Files.createTempFile("dedup", ".spool");
+      try {
+        Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+        save(spool);
+      } finally {
+        Files.deleteIfExists(spool);
+      }
+    }
+
+    @Override
+    public void save(ReadableByteChannel channel) throws IOException {
+      save(Channels.newInputStream(channel));
+    }
+
+    @Override
+    public void save(Path path) throws IOException {
+      MessageDigest digest = sha256();
+      try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+        in.transferTo(OutputStream.nullOutputStream());
+      }
+      String hash = HexFormat.of().formatHex(digest.digest());
+      long size = Files.size(path);
+      store(hash, size, () -> {
+        if (binary != null) {
+          try (InputStream in = Files.newInputStream(path)) {
+            send(in, size);
+          }
+        } else {
+          delegate.save(path);
+          bytesSent.add(size);
+        }
+      });
+    }
+
+    private interface Upload {
+      void run() throws IOException;
+    }
+
+    // Uploads unless the content is stored already; waits if the same content
+    // is being uploaded right now and retries if that upload failed
+    private void store(String hash, long size, Upload upload) throws IOException {
+      bytesIn.add(size);
+      while (true) {
+        if (known.contains(hash)) {
+          skipped.increment();
+          return;
+        }
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> other = inFlight.putIfAbsent(hash, mine);
+        if (other == null) {
+          // another upload of this content may have finished between the
+          // check above and taking the slot
+          if (known.contains(hash)) {
+            inFlight.remove(hash, mine);
+            mine.complete(null);
+            skipped.increment();
+            return;
+          }
+          upload(hash, upload, mine);
+          return;
+        }
+        try {
+          other.join();
+        } catch (CompletionException e) {
+          // the other upload failed; try again ourselves
+        }
+      }
+    }
+
+    private void upload(String hash, Upload upload, CompletableFuture<Void> mine) throws IOException {
+      try {
+        upload.run();
+        uploads.increment();
+        record(hash);
+        known.add(hash); // before leaving inFlight, so waiters see it
+        inFlight.remove(hash);
+        mine.complete(null);
+      } catch (IOException | RuntimeException e) {
+        inFlight.remove(hash);
+        mine.completeExceptionally(e);
+        throw e;
+      }
+    }
+
+    private void send(InputStream raw, long size) throws IOException {
+      boolean deflate = size > compressThreshold;
+      CountingInputStream body = new CountingInputStream(deflate ? new DeflaterInputStream(raw) : raw);
+      InputStream marked = new SequenceInputStream(
+          new ByteArrayInputStream(new byte[] {(byte) (deflate ? DEFLATE : IDENTITY)}), body);
+      binary.save(marked);
+      bytesSent.add(1 + body.count);
+    }
+
+    private synchronized void record(String hash) throws IOException {
+      Files.writeString(indexFile, hash + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static MessageDigest sha256() {
+      try {
+        return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("SHA-256 not available", e);
+      }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+      long count;
+
+      CountingInputStream(InputStream in) {
+        super(in);
+      }
+
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) count++;
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) count += n;
+        return n;
+      }
+    }
   }
 
-  public static void main(String[] args) {
+  // Local fake of the storage library that reassembles parts in memory
+  public static class LocalStorageLibrary extends GoogleCloudStorageLibrary {
+    final Map<String, Map<Integer, byte[]>> pending = new ConcurrentHashMap<>();
+    final List<byte[]> stored = new ArrayList<>();
+
+    @Override
+    String startMultipartUpload(String projectName) {
+      String id = super.startMultipartUpload(projectName);
+      pending.put(id, new TreeMap<>());
+      return id;
+    }
+
+    @Override
+    void uploadPart(String uploadId, int partNumber, ByteBuffer data) {
+      byte[] copy = new byte[data.remaining()];
+      data.get(copy);
+      Map<Integer, byte[]> parts = pending.get(uploadId);
+      synchronized (parts) {
+        parts.put(partNumber, copy);
+      }
+    }
+
+    @Override
+    void completeMultipartUpload(String uploadId, int parts) {
+      Map<Integer, byte[]> p = pending.remove(uploadId);
+      int total = p.values().stream().mapToInt(b -> b.length).sum();
+      byte[] out = new byte[total];
+      int pos = 0;
+      for (byte[] b : p.values()) {
+        System.arraycopy(b, 0, out, pos, b.length);
+        pos += b.length;
+      }
+      synchronized (stored) {
+        stored.add(out);
+      }
+    }
+
+    @Override
+    void abortMultipartUpload(String uploadId) {
+      pending.remove(uploadId);
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
     FileStorage fileStorage = new GcsFileStorage(new GoogleCloudStorageLibrary());
     // Client code
     fileStorage.save("Hello World");
-  }
-}
-
+    System.out.println();
 
+    // Streaming a 10 MB payload in 1 MB parts, 4 at a time
+    LocalStorageLibrary local = new LocalStorageLibrary();
+    byte[] payload = new byte[10 * 1024 * 1024 + 123];
+    for (int i = 0; i < payload.length; i++) payload[i] = (byte) i;
 
+    try (GcsFileStorage streaming = new GcsFileStorage(local, 1024 * 1024, 4)) {
+      streaming.save(new ByteArrayInputStream(payload));
+      Path tmp = Files.createTempFile("adapter", ".bin");
+      try {
+        Files.write(tmp, payload);
+        streaming.save(tmp);
+      } finally {
+        Files.delete(tmp);
+      }
+    }
+    for (byte[] stored : local.stored) {
+      System.out.println("stored " + stored.length + " bytes, intact: " + Arrays.equals(stored, payload));
+    }
 
+    // Write-behind: 1000 small saves return immediately and go out in batches
+    try (GcsFileStorage gcs = new GcsFileStorage(new GoogleCloudStorageLibrary());
+        WriteBehindFileStorage behind = new WriteBehindFileStorage(gcs, 256, 100, 2)) {
+      long t0 = System.nanoTime();
+      for (int i = 0; i < 1000; i++) behind.save("object-" + i);
+      long queued = System.nanoTime() - t0;
+      behind.flush();
+      System.out.printf("write-behind: queued 1000 saves in %d us, durable after %d us%n",
+          queued / 1_000, (System.nanoTime() - t0) / 1_000);
+    }
 
+    // Dedup + compression: repeated, compressible content is sent once, deflated
+    Path index = Files.createTempFile("dedup", ".idx");
+    LocalStorageLibrary objects = new LocalStorageLibrary();
+    try (GcsFileStorage gcs = new GcsFileStorage(objects, 1024 * 1024, 2)) {
+      DedupCompressingFileStorage dedup = new DedupCompressingFileStorage(gcs, index, 1024);
+      String report = "status=OK ".repeat(10_000);
+      List<CompletableFuture<Void>> saves = new ArrayList<>();
+      for (int i = 0; i < 20; i++) saves.add(CompletableFuture.runAsync(() -> dedup.save(report)));
+      saves.forEach(CompletableFuture::join);
+      byte[] restored = DedupCompressingFileStorage.decode(new ByteArrayInputStream(objects.stored.get(0))).readAllBytes();
+      System.out.printf("dedup: %d saves, %d uploads, %d skipped, %d bytes in, %d bytes sent, restored intact: %b%n",
+          20, dedup.uploads.sum(), dedup.skipped.sum(), dedup.bytesIn.sum(), dedup.bytesSent.sum(),
+          Arrays.equals(restored, report.getBytes(StandardCharsets.UTF_8)));
+    } finally {
+      Files.delete(index);
+    }
+  }
+}
@@ -1,4 +1,24 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 public class BridgePattern {
   
@@ -6,6 +26,33 @@ public class BridgePattern {
   public interface PaymentGateway {
     // common primitives used by Payment abstractions
     boolean charge(String account, double amount, Map<String,String> metadata);
+
+    // Results are in the same order as charges. The default charges one by one
+    // on the caller's thread and returns an already completed future; gateways
+    // that support it should pack the whole batch into one provider call and
+    // complete the future off the caller's thread.
+    default CompletableFuture<List<Boolean>> chargeBatch(List<Charge> charges) {
+      try {
+        List<Boolean> results = new ArrayList<>(charges.size());
+        for (Charge c : charges) results.add(charge(c.accountId, c.amount, c.metadata));
+        return CompletableFuture.completedFuture(results);
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+  }
+
+  // One charge request, as passed to chargeBatch
+  public static final class Charge {
+    final String accountId;
+    final double amount;
+    final Map<String,String> metadata;
+
+    public Charge(String accountId, double amount, Map<String,String> metadata) {
+      this.accountId = accountId;
+      this.amount = amount;
+      this.metadata = metadata;
+    }
   }
 
   // Concrete implementors
@@ -26,6 +73,530 @@ public class BridgePattern {
     }
   }
 
+  // Local stand-in for a provider: every provider call costs a fixed latency,
+  // whether it carries one charge or a whole batch. Latency and failure rate
+  // can be changed at runtime to simulate a degrading provider.
+  public static class FakeLatencyGateway implements PaymentGateway {
+    private volatile long latencyMillis;
+    private volatile double failureRate;
+    private final ExecutorService io;
+
+    public FakeLatencyGateway(long latencyMillis, int connections) {
+      this.latencyMillis = latencyMillis;
+      this.io = Executors.newFixedThreadPool(connections, r -> {
+        Thread t = new Thread(r, "fake-gateway-io");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+      this.latencyMillis = latencyMillis;
+    }
+
+    public void setFailureRate(double failureRate) {
+      this.failureRate = failureRate;
+    }
+
+    @Override
+    public boolean charge(String accountId, double amount, Map<String,String> metadata) {
+      providerCall();
+      return true;
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> chargeBatch(List<Charge> charges) {
+      return CompletableFuture.supplyAsync(() -> {
+        providerCall(); // one round trip for the whole batch
+        List<Boolean> results = new ArrayList<>(charges.size());
+        for (int i = 0; i < charges.size(); i++) results.add(true);
+        return results;
+      }, io);
+    }
+
+    private void providerCall() {
+      try {
+        TimeUnit.MILLISECONDS.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted during provider call", e);
+      }
+      if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+        throw new IllegalStateException("Provider unavailable");
+      }
+    }
+  }
+
+  // Routes each call to the fastest healthy gateway, by EWMA latency weighted
+  // up by the EWMA error rate, and fails
+  // over to the next one when a gateway throws. A false result is a decline,
+  // not a gateway failure, and is returned as is. Each gateway has a circuit
+  // breaker: after FAILURES_TO_OPEN consecutive errors it is skipped for
+  // openMillis, then a single probe call decides whether it closes again.
+  // The probe is claimed right before the call, never just for being listed.
+  // A gateway that is not being called keeps an old score, so scores decay
+  // with a half-life of openMillis since the last sample: an idle gateway looks
+  // better over time until it gets one call and is measured again. A
+  // successful probe also restarts the averages from that call.
+  // Note: failing over a call that timed out on the provider side can charge
+  // twice unless the providers deduplicate (see idempotency keys).
+  public static class RoutingGateway implements PaymentGateway {
+    private static final double ALPHA = 0.2;
+    private static final int FAILURES_TO_OPEN = 3;
+    private static final double ERROR_PENALTY = 10;
+
+    private final List<Route> routes = new ArrayList<>();
+    private final long openNanos;
+
+    public RoutingGateway(List<PaymentGateway> gateways, long openMillis) {
+      if (gateways.isEmpty()) throw new IllegalArgumentException("No gateways");
+      for (PaymentGateway g : gateways) routes.add(new Route(g));
+      this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    @Override
+    public boolean charge(String accountId, double amount, Map<String,String> metadata) {
+      RuntimeException last = null;
+      for (Route r : candidates()) {
+        if (!r.claim(System.nanoTime(), openNanos)) continue;
+        long start = System.nanoTime();
+        try {
+          boolean ok = r.gateway.charge(accountId, amount, metadata);
+          r.onSuccess(System.nanoTime() - start);
+          return ok;
+        } catch (RuntimeException e) {
+          r.onFailure(System.nanoTime() - start);
+          last = e;
+        } catch (Error e) {
+          r.release();
+          throw e;
+        }
+      }
+      throw noRoute(last);
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> chargeBatch(List<Charge> charges) {
+      return attempt(candidates(), 0, charges, null);
+    }
+
+    private CompletableFuture<List<Boolean>> attempt(List<Route> order, int i, List<Charge> charges,
+        Throwable last) {
+      if (i == order.size()) return CompletableFuture.failedFuture(noRoute(last));
+      Route r = order.get(i);
+      if (!r.claim(System.nanoTime(), openNanos)) return attempt(order, i + 1, charges, last);
+      long start = System.nanoTime();
+      CompletableFuture<List<Boolean>> f;
+      try {
+        f = r.gateway.chargeBatch(charges);
+      } catch (RuntimeException e) {
+        f = CompletableFuture.failedFuture(e);
+      } catch (Error e) {
+        r.release();
+        throw e;
+      }
+      return f.handle((res, err) -> {
+        if (err == null) {
+          r.onSuccess(System.nanoTime() - start);
+          return CompletableFuture.completedFuture(res);
+        }
+        r.onFailure(System.nanoTime() - start);
+        return attempt(order, i + 1, charges, err);
+      }).thenCompose(x -> x);
+    }
+
+    // Callable gateways fastest first: closed breakers, plus open ones whose
+    // cool-down is over (they still have to win the probe in claim)
+    private List<Route> candidates() {
+      long now = System.nanoTime();
+      List<Route> callable = new ArrayList<>(routes.size());
+      Map<Route, Double> scores = new HashMap<>();
+      for (Route r : routes) {
+        if (r.eligible(now, openNanos)) {
+          callable.add(r);
+          scores.put(r, r.score(now, openNanos));
+        }
+      }
+      callable.sort((a, b) -> Double.compare(scores.get(a), scores.get(b)));
+      return callable;
+    }
+
+    private static IllegalStateException noRoute(Throwable cause) {
+      return new IllegalStateException("No payment gateway available", cause);
+    }
+
+    // Per-gateway state, updated lock-free from many threads
+    private static final class Route {
+      final PaymentGateway gateway;
+      // EWMA latency in nanos and error rate, stored as double bits
+      final AtomicLong latencyBits = new AtomicLong(Double.doubleToLongBits(0));
+      final AtomicLong errorBits = new AtomicLong(Double.doubleToLongBits(0));
+      final AtomicInteger consecutiveFailures = new AtomicInteger();
+      final AtomicLong openedAt = new AtomicLong(-1); // -1 = closed
+      final AtomicBoolean probing = new AtomicBoolean();
+      volatile long lastSample = System.nanoTime();
+
+      Route(PaymentGateway gateway) {
+        this.gateway = gateway;
+      }
+
+      double latency() {
+        return Double.longBitsToDouble(latencyBits.get());
+      }
+
+      double errorRate() {
+        return Double.longBitsToDouble(errorBits.get());
+      }
+
+      double score(long now, long halfLifeNanos) {
+        double raw = latency() * (1 + ERROR_PENALTY * errorRate());
+        return raw * Math.pow(0.5, (double) (now - lastSample) / halfLifeNanos);
+      }
+
+      boolean eligible(long now, long openNanos) {
+        long opened = openedAt.get();
+        return opened < 0 || (now - opened >= openNanos && !probing.get());
+      }
+
+      // Called right before the call; a half-open route lets exactly one probe through
+      boolean claim(long now, long openNanos) {
+        long opened = openedAt.get();
+        if (opened < 0) return true;
+        return now - opened >= openNanos && probing.compareAndSet(false, true);
+      }
+
+      // The claimed call was not made
+      void release() {
+        probing.set(false);
+      }
+
+      void onSuccess(long nanos) {
+        if (probing.get()) {
+          // recovered: forget the samples from before the outage
+          latencyBits.set(Double.doubleToLongBits(nanos));
+          errorBits.set(Double.doubleToLongBits(0));
+          lastSample = System.nanoTime();
+        } else {
+          record(nanos, 0);
+        }
+        consecutiveFailures.set(0);
+        openedAt.set(-1);
+        probing.set(false);
+      }
+
+      void onFailure(long nanos) {
+        record(nanos, 1);
+        if (consecutiveFailures.incrementAndGet() >= FAILURES_TO_OPEN || probing.get()) {
+          openedAt.set(System.nanoTime());
+        }
+        probing.set(false);
+      }
+
+      private void record(long nanos, double error) {
+        ewma(latencyBits, nanos);
+        ewma(errorBits, error);
+        lastSample = System.nanoTime();
+      }
+
+      private static void ewma(AtomicLong bits, double sample) {
+        long cur;
+        long next;
+        do {
+          cur = bits.get();
+          double old = Double.longBitsToDouble(cur);
+          next = Double.doubleToLongBits(old + ALPHA * (sample - old));
+        } while (!bits.compareAndSet(cur, next));
+      }
+    }
+  }
+
+  // Deduplicates charges by idempotency key (metadata "idempotency-key").
+  // Concurrent duplicates share one in-flight charge, and finished results,
+  // declines included, are replayed until they expire after ttl. Exceptions are
+  // not cached, so a failed charge can be retried. Lookups are one
+  // ConcurrentHashMap.get. The cache holds at most maxEntries keys; since
+  // every entry has the same TTL, insertion order is also expiry order, so one
+  // FIFO queue handles both expiry and capacity eviction. An entry whose charge
+  // is still running is never evicted or replaced, even past its TTL, since
+  // that would let a retry charge again; eviction moves it to the back of the
+  // queue and carries on, so the cache exceeds maxEntries by at most the
+  // number of charges in flight. Size maxEntries as
+  // peak charges/second x ttl seconds, at roughly 200 bytes per entry plus the
+  // key string. Calls without a key pass straight through.
+  public static class DeduplicatingGateway implements PaymentGateway {
+    static final String KEY = "idempotency-key";
+
+    private final PaymentGateway delegate;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public DeduplicatingGateway(PaymentGateway delegate, long ttlMillis, int maxEntries) {
+      if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+      this.delegate = delegate;
+      this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+      this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public boolean charge(String accountId, double amount, Map<String,String> metadata) {
+      String key = metadata.get(KEY);
+      if (key == null) return delegate.charge(accountId, amount, metadata);
+
+      long now = System.nanoTime();
+      Entry e = entries.get(key);
+      if (e == null || (e.expired(now) && e.result.isDone())) {
+        Entry mine = new Entry(key, accountId, amount, now + ttlNanos);
+        Entry raced = (e == null) ? entries.putIfAbsent(key, mine)
+            : (entries.replace(key, e, mine) ? null : entries.get(key));
+        if (raced == null) {
+          admitted(mine, now);
+          return run(mine, metadata);
+        }
+        e = raced;
+      }
+      if (!e.accountId.equals(accountId) || e.amount != amount) {
+        throw new IllegalArgumentException("Idempotency key reused for a different charge: " + key);
+      }
+      try {
+        return e.result.join();
+      } catch (CompletionException ce) {
+        throw ce.getCause() instanceof RuntimeException ? (RuntimeException) ce.getCause() : ce;
+      }
+    }
+
+    private boolean run(Entry e, Map<String,String> metadata) {
+      try {
+        boolean ok = delegate.charge(e.accountId, e.amount, metadata);
+        e.result.complete(ok);
+        return ok;
+      } catch (RuntimeException ex) {
+        entries.remove(e.key, e); // let a retry charge again
+        e.result.completeExceptionally(ex);
+        throw ex;
+      }
+    }
+
+    // Drops expired entries from the head, then the oldest ones over capacity.
+    // In-flight heads are re-queued at the tail instead of stopping the sweep;
+    // each pass looks at every queued entry at most once.
+    private void admitted(Entry e, long now) {
+      insertionOrder.add(e);
+      size.incrementAndGet();
+      for (int budget = size.get(); budget > 0; budget--) {
+        Entry head = insertionOrder.peek();
+        if (head == null || !(head.expired(now) || size.get() > maxEntries)) return;
+        if (!insertionOrder.remove(head)) continue;
+        if (head.result.isDone()) {
+          size.decrementAndGet();
+          entries.remove(head.key, head);
+        } else {
+          insertionOrder.add(head);
+        }
+      }
+    }
+
+    int cachedKeys() {
+      return entries.size();
+    }
+
+    private static final class Entry {
+      final String key;
+      final String accountId;
+      final double amount;
+      final long expiresAt;
+      final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+      Entry(String key, String accountId, double amount, long expiresAt) {
+        this.key = key;
+        this.accountId = accountId;
+        this.amount = amount;
+        this.expiresAt = expiresAt;
+      }
+
+      boolean expired(long now) {
+        return now - expiresAt > 0;
+      }
+    }
+  }
+
+  // Rate limit and bulkhead around one gateway. The token bucket is kept as a
+  // single "theoretical arrival time" (GCRA), so each permit decision is one
+  // CAS on an AtomicLong. The bulkhead is a Semaphore that caps concurrent
+  // calls. On overflow, QUEUE waits up to maxWaitMillis for a token or a
+  // slot, while REJECT fails at once with RejectedExecutionException. A batch
+  // counts as one provider call. chargeBatch never blocks its caller: the token
+  // wait is a delayed continuation and a full bulkhead parks the batch in a
+  // waiter queue that freed slots are handed to. Delayed batches start on the
+  // common pool, so the delegate's chargeBatch should not block there.
+  // queued counts calls that had to wait, for a token or for a slot.
+  public static class ThrottledGateway implements PaymentGateway {
+    public enum Overflow { QUEUE, REJECT }
+
+    private final PaymentGateway delegate;
+    private final long intervalNanos; // time per token
+    private final long burstNanos; // bucket depth expressed as time
+    private final AtomicLong arrival = new AtomicLong(System.nanoTime());
+    private final Semaphore bulkhead;
+    // Batches waiting for a slot; a freed slot goes to them before the semaphore
+    private final ConcurrentLinkedQueue<CompletableFuture<Void>> slotWaiters = new ConcurrentLinkedQueue<>();
+    private final Overflow overflow;
+    private final long maxWaitNanos;
+
+    // Published counters
+    private final LongAdder permitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder bulkheadFull = new LongAdder();
+
+    public ThrottledGateway(PaymentGateway delegate, double permitsPerSecond, int burst,
+        int maxConcurrent, Overflow overflow, long maxWaitMillis) {
+      if (permitsPerSecond <= 0 || burst <= 0 || maxConcurrent <= 0) {
+        throw new IllegalArgumentException("rate, burst and maxConcurrent must be > 0");
+      }
+      this.delegate = delegate;
+      this.intervalNanos = Math.max(1, (long) (1e9 / permitsPerSecond));
+      this.burstNanos = intervalNanos * burst;
+      this.bulkhead = new Semaphore(maxConcurrent);
+      this.overflow = overflow;
+      this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    @Override
+    public boolean charge(String accountId, double amount, Map<String,String> metadata) {
+      acquire();
+      try {
+        return delegate.charge(accountId, amount, metadata);
+      } finally {
+        releaseSlot();
+      }
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> chargeBatch(List<Charge> charges) {
+      long wait;
+      try {
+        wait = reserveToken();
+      } catch (RejectedExecutionException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+      CompletableFuture<Void> token = CompletableFuture.completedFuture(null);
+      if (wait > 0) {
+        queued.increment();
+        token = CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+      }
+      return token.thenCompose(v -> acquireSlotAsync(wait > 0)).thenCompose(v -> {
+        permitted.increment();
+        try {
+          return delegate.chargeBatch(charges).whenComplete((r, e) -> releaseSlot());
+        } catch (RuntimeException e) {
+          releaseSlot();
+          throw e;
+        }
+      });
+    }
+
+    // Completes once a slot is held; refunds the token when no slot comes
+    private CompletableFuture<Void> acquireSlotAsync(boolean alreadyQueued) {
+      if (bulkhead.tryAcquire()) return CompletableFuture.completedFuture(null);
+      if (overflow == Overflow.REJECT) return CompletableFuture.failedFuture(bulkheadRejected());
+      if (!alreadyQueued) queued.increment();
+      CompletableFuture<Void> waiter = new CompletableFuture<>();
+      slotWaiters.add(waiter);
+      CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+        if (waiter.completeExceptionally(bulkheadRejected())) slotWaiters.remove(waiter);
+      });
+      // A slot freed before we were queued went to the semaphore; take it now.
+      // If the waiter was completed meanwhile (handed a slot, or timed out),
+      // the extra slot goes back.
+      if (bulkhead.tryAcquire()) {
+        if (waiter.complete(null)) slotWaiters.remove(waiter);
+        else releaseSlot();
+      }
+      return waiter;
+    }
+
+    private void releaseSlot() {
+      CompletableFuture<Void> waiter;
+      while ((waiter = slotWaiters.poll()) != null) {
+        if (waiter.complete(null)) return; // slot handed over
+      }
+      bulkhead.release();
+    }
+
+    private RejectedExecutionException bulkheadRejected() {
+      refundToken();
+      bulkheadFull.increment();
+      return new RejectedExecutionException("Too many concurrent gateway calls");
+    }
+
+    // Takes a token, then a bulkhead slot; the caller must release the slot.
+    // The token is handed back if no slot is obtained, so bulkhead rejections
+    // do not eat into the rate.
+    private void acquire() {
+      long wait = reserveToken();
+      boolean waited = wait > 0;
+      if (waited) {
+        queued.increment();
+        long deadline = System.nanoTime() + wait;
+        // parkNanos may return early (spurious wake-up or interrupt)
+        for (long left = wait; left > 0; left = deadline - System.nanoTime()) {
+          if (Thread.currentThread().isInterrupted()) {
+            refundToken();
+            throw new RejectedExecutionException("Interrupted waiting for gateway");
+          }
+          LockSupport.parkNanos(left);
+        }
+      }
+      boolean slot = bulkhead.tryAcquire();
+      if (!slot && overflow == Overflow.QUEUE) {
+        if (!waited) queued.increment();
+        try {
+          slot = bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+          refundToken();
+          Thread.currentThread().interrupt();
+          throw new RejectedExecutionException("Interrupted waiting for gateway", e);
+        }
+      }
+      if (!slot) throw bulkheadRejected();
+      permitted.increment();
+    }
+
+    private void refundToken() {
+      arrival.addAndGet(-intervalNanos);
+    }
+
+    // Returns how long to wait before the reserved token is usable, or throws
+    // if that is not allowed by the overflow policy
+    private long reserveToken() {
+      while (true) {
+        long now = System.nanoTime();
+        long tat = arrival.get();
+        long next = Math.max(tat, now) + intervalNanos;
+        long wait = next - now - burstNanos; // > 0 once the bucket is empty
+        if (wait > 0 && (overflow == Overflow.REJECT || wait > maxWaitNanos)) {
+          throttled.increment();
+          throw new RejectedExecutionException("Gateway rate limit exceeded");
+        }
+        if (arrival.compareAndSet(tat, next)) return wait;
+      }
+    }
+
+    public long permitted() { return permitted.sum(); }
+    public long queued() { return queued.sum(); }
+    public long throttled() { return throttled.sum(); }
+    public long bulkheadFull() { return bulkheadFull.sum(); }
+
+    @Override
+    public String toString() {
+      return "permitted=" + permitted() + " queued=" + queued()
+          + " throttled=" + throttled() + " bulkheadFull=" + bulkheadFull();
+    }
+  }
+
   // Abstraction: base Payment (uses a PaymentGateway)
   public static abstract class Payment {
     protected final PaymentGateway gateway;
@@ -33,34 +604,119 @@ public class BridgePattern {
     protected Payment(PaymentGateway gateway) {
       this.gateway = gateway;
     }
-    
-    public abstract boolean pay(String accountId, double amount);
+
+    // Per-type metadata, built once and shared by every charge of that type
+    protected abstract Map<String,String> metadata();
+
+    public boolean pay(String accountId, double amount) {
+      return gateway.charge(accountId, amount, metadata());
+    }
+
+    // Retry-safe variant: the key travels in the metadata so a deduplicating
+    // gateway can recognise repeats of the same logical payment
+    public boolean pay(String accountId, double amount, String idempotencyKey) {
+      Map<String,String> meta = new HashMap<>(metadata());
+      meta.put(DeduplicatingGateway.KEY, idempotencyKey);
+      return gateway.charge(accountId, amount, Collections.unmodifiableMap(meta));
+    }
+
+    public Charge charge(String accountId, double amount) {
+      return new Charge(accountId, amount, metadata());
+    }
+
+    // Splits charges into batches and keeps up to maxInFlight batches in flight.
+    // Never blocks: each finished batch submits the next one. A failed batch
+    // fails the returned future but does not stop the remaining batches.
+    public CompletableFuture<List<Boolean>> payAll(List<Charge> charges, int batchSize, int maxInFlight) {
+      if (batchSize <= 0 || maxInFlight <= 0) throw new IllegalArgumentException("batchSize and maxInFlight must be > 0");
+      BatchWindow window = new BatchWindow(gateway, charges, batchSize);
+      for (int i = 0; i < Math.min(maxInFlight, window.results.size()); i++) window.submitNext();
+      return CompletableFuture.allOf(window.results.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+        List<Boolean> results = new ArrayList<>(charges.size());
+        for (CompletableFuture<List<Boolean>> f : window.results) results.addAll(f.join());
+        return results;
+      });
+    }
+
+    // One payAll run: a slot per batch, filled as batches finish
+    private static final class BatchWindow {
+      private final PaymentGateway gateway;
+      private final List<Charge> charges;
+      private final int batchSize;
+      private final List<CompletableFuture<List<Boolean>>> results = new ArrayList<>();
+      private final AtomicInteger next = new AtomicInteger();
+
+      BatchWindow(PaymentGateway gateway, List<Charge> charges, int batchSize) {
+        this.gateway = gateway;
+        this.charges = charges;
+        this.batchSize = batchSize;
+        for (int from = 0; from < charges.size(); from += batchSize) results.add(new CompletableFuture<>());
+      }
+
+      // Batches that complete synchronously are handled in the loop rather
+      // than by recursion, so a synchronous gateway cannot blow the stack
+      void submitNext() {
+        while (true) {
+          int batch = next.getAndIncrement();
+          if (batch >= results.size()) return;
+          CompletableFuture<List<Boolean>> slot = results.get(batch);
+          CompletableFuture<List<Boolean>> f = submit(batch);
+          if (f.isDone()) {
+            copy(f, slot);
+            continue;
+          }
+          f.whenComplete((r, e) -> {
+            copy(f, slot);
+            submitNext();
+          });
+          return;
+        }
+      }
+
+      private CompletableFuture<List<Boolean>> submit(int batch) {
+        int from = batch * batchSize;
+        try {
+          return gateway.chargeBatch(charges.subList(from, Math.min(from + batchSize, charges.size())));
+        } catch (RuntimeException e) {
+          return CompletableFuture.failedFuture(e);
+        }
+      }
+
+      // f is done here
+      private static void copy(CompletableFuture<List<Boolean>> f, CompletableFuture<List<Boolean>> slot) {
+        try {
+          slot.complete(f.join());
+        } catch (CompletionException | CancellationException e) {
+          slot.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+        }
+      }
+    }
   }
 
   // Refined Abstractions (concrete payment types)
   public static class OneTimePayment extends Payment {
+    private static final Map<String,String> META = Map.of("type","one-time");
 
     public OneTimePayment(PaymentGateway gateway) {
       super(gateway);
     }
 
     @Override
-    public boolean pay(String accountId, double amount) {
-      Map<String,String> meta = Map.of("type","one-time");
-      return gateway.charge(accountId, amount, meta);
+    protected Map<String,String> metadata() {
+      return META;
     }
   }
 
   public static class SubscriptionPayment extends Payment {
+    private static final Map<String,String> META = Map.of("type","subscription");
 
     public SubscriptionPayment(PaymentGateway gateway) {
       super(gateway);
     }
 
     @Override
-    public boolean pay(String accountId, double amount) {
-      Map<String,String> meta = Map.of("type","subscription");
-      return gateway.charge(accountId, amount, meta);
+    protected Map<String,String> metadata() {
+      return META;
     }
   }
 
@@ -74,5 +730,81 @@ public class BridgePattern {
 
     oneTimeViaStripe.pay("acct-100", 49.99); // uses Stripe implementation
     subViaPayPal.pay("acct-200", 9.99); // uses PayPal implementation
+
+    // Monthly run against a fake provider with 5 ms per call
+    Payment monthly = new SubscriptionPayment(new FakeLatencyGateway(5, 4));
+    List<Charge> run = new ArrayList<>();
+    for (int i = 0; i < 400; i++) run.add(monthly.charge("acct-" + i, 9.99));
+
+    long start = System.nanoTime();
+    for (Charge c : run) monthly.pay(c.accountId, c.amount);
+    long oneByOne = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    List<Boolean> ok = monthly.payAll(run, 50, 4).join();
+    long batched = System.nanoTime() - start;
+
+    System.out.printf("%d charges: one by one %d ms, batched+pipelined %d ms (%d ok)%n",
+        run.size(), oneByOne / 1_000_000, batched / 1_000_000, ok.stream().filter(b -> b).count());
+
+    // Routing: the primary degrades and starts failing; calls move to the backup
+    FakeLatencyGateway primary = new FakeLatencyGateway(1, 4);
+    FakeLatencyGateway backup = new FakeLatencyGateway(3, 4);
+    RoutingGateway router = new RoutingGateway(List.of(primary, backup), 200);
+    Payment routed = new OneTimePayment(router);
+    for (int i = 0; i < 20; i++) routed.pay("acct-" + i, 1.0);
+    primary.setLatencyMillis(50);
+    primary.setFailureRate(1.0);
+    long worst = 0;
+    for (int i = 0; i < 50; i++) {
+      long t0 = System.nanoTime();
+      routed.pay("acct-" + i, 1.0);
+      worst = Math.max(worst, System.nanoTime() - t0);
+    }
+    long t0 = System.nanoTime();
+    for (int i = 0; i < 50; i++) routed.pay("acct-" + i, 1.0);
+    System.out.printf("routing: worst call during failover %d ms, steady state %.1f ms/call%n",
+        worst / 1_000_000, (System.nanoTime() - t0) / 50 / 1e6);
+
+    // Idempotency: eight concurrent retries of one payment reach the provider once
+    AtomicInteger providerCalls = new AtomicInteger();
+    PaymentGateway counting = (acct, amount, meta) -> {
+      providerCalls.incrementAndGet();
+      try {
+        TimeUnit.MILLISECONDS.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return true;
+    };
+    DeduplicatingGateway dedup = new DeduplicatingGateway(counting, TimeUnit.HOURS.toMillis(1), 100_000);
+    Payment safe = new OneTimePayment(dedup);
+    List<CompletableFuture<Boolean>> retries = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      retries.add(CompletableFuture.supplyAsync(() -> safe.pay("acct-1", 20.0, "order-42")));
+    }
+    retries.forEach(CompletableFuture::join);
+    safe.pay("acct-1", 20.0, "order-42");
+    System.out.println("idempotency: 9 attempts, provider calls " + providerCalls.get()
+        + ", cached keys " + dedup.cachedKeys());
+
+    // Throttling: 100 charges/s with a burst of 10; REJECT drops the excess,
+    // QUEUE smooths it out
+    ThrottledGateway rejecting = new ThrottledGateway((a, m, meta) -> true, 100, 10, 4,
+        ThrottledGateway.Overflow.REJECT, 0);
+    int rejected = 0;
+    for (int i = 0; i < 50; i++) {
+      try {
+        rejecting.charge("acct-" + i, 1.0, Map.of());
+      } catch (RejectedExecutionException e) {
+        rejected++;
+      }
+    }
+    System.out.println("reject mode: " + rejected + " rejected, " + rejecting);
+    ThrottledGateway queueing = new ThrottledGateway((a, m, meta) -> true, 100, 10, 4,
+        ThrottledGateway.Overflow.QUEUE, 1_000);
+    long q0 = System.nanoTime();
+    for (int i = 0; i < 50; i++) queueing.charge("acct-" + i, 1.0, Map.of());
+    System.out.printf("queue mode: 50 charges in %d ms, %s%n", (System.nanoTime() - q0) / 1_000_000, queueing);
   }
 }
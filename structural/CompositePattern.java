@@ -1,52 +1,745 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class CompositePattern {
 
   // Component: interface declares common operations for both
   // simple and complex objects of a composition.
   interface FileSystemNode {
-    void print(String indent);
+    String name();
+
+    default boolean isFolder() {
+      return false;
+    }
+
+    default Iterable<? extends FileSystemNode> children() {
+      return Collections.emptyList();
+    }
+
+    default void print(String indent) {
+      PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out));
+      TreeRenderer.render(this, indent, out);
+      out.flush(); // one flush for the whole tree; System.out itself stays open
+    }
+
+    default void accept(NodeVisitor visitor) {
+      TreeWalker.walk(this, visitor);
+    }
+
+    // Aggregates over the subtree rooted at this node
+    long totalSize();
+
+    int fileCount();
+
+    // Levels below this node (0 for a file or an empty folder)
+    int depth();
+  }
+
+  // Streaming visitor: called once per node in pre-order,
+  // and once more for each folder after all of its children
+  interface NodeVisitor {
+    void visit(FileSystemNode node, int depth);
+
+    default void leave(FileSystemNode folder, int depth) {}
+
+    // Return false to skip a folder's children (and its leave call)
+    default boolean descend(FileSystemNode folder, int depth) {
+      return true;
+    }
+  }
+
+  // Iterative depth-first traversal with an explicit stack,
+  // so tree depth is bounded by heap, not by the thread stack
+  static final class TreeWalker {
+    private TreeWalker() {}
+
+    static void walk(FileSystemNode root, NodeVisitor visitor) {
+      visitor.visit(root, 0);
+      if (!root.isFolder() || !visitor.descend(root, 0)) return;
+
+      List<FileSystemNode> folders = new ArrayList<>();
+      List<Iterator<? extends FileSystemNode>> pending = new ArrayList<>();
+      folders.add(root);
+      pending.add(root.children().iterator());
+
+      while (!pending.isEmpty()) {
+        int top = pending.size() - 1;
+        Iterator<? extends FileSystemNode> it = pending.get(top);
+        if (it.hasNext()) {
+          FileSystemNode child = it.next();
+          visitor.visit(child, top + 1);
+          if (child.isFolder() && visitor.descend(child, top + 1)) {
+            folders.add(child);
+            pending.add(child.children().iterator());
+          }
+        } else {
+          pending.remove(top);
+          visitor.leave(folders.remove(top), top);
+        }
+      }
+    }
+  }
+
+  // Writes "indent + name" lines to any Writer. Indentation comes from
+  // one shared, growing char[] of spaces, so no per-node strings are built.
+  static final class TreeRenderer implements NodeVisitor {
+    private static final int STEP = 2;
+
+    private final Writer out;
+    private final String prefix;
+    private char[] spaces = new char[16];
+
+    private TreeRenderer(Writer out, String prefix) {
+      this.out = out;
+      this.prefix = prefix;
+      Arrays.fill(spaces, ' ');
+    }
+
+    static void render(FileSystemNode root, String prefix, Writer out) {
+      root.accept(new TreeRenderer(out, prefix));
+    }
+
+    @Override
+    public void visit(FileSystemNode node, int depth) {
+      try {
+        int width = depth * STEP;
+        if (width > spaces.length) {
+          spaces = new char[Math.max(width, spaces.length * 2)];
+          Arrays.fill(spaces, ' ');
+        }
+        out.write(prefix);
+        out.write(spaces, 0, width);
+        out.write(node.name());
+        if (node.isFolder()) out.write('/');
+        out.write('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
   }
 
   // Leaf: simple object
   public static class FileLeaf implements FileSystemNode {
     private final String name;
+    private final long size;
+    private final long lastModified; // epoch millis, 0 if unknown
 
     FileLeaf(String name) {
+        this(name, 0);
+    }
+
+    FileLeaf(String name, long size) {
+        this(name, size, 0);
+    }
+
+    FileLeaf(String name, long size, long lastModified) {
         this.name = name;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    public long lastModified() {
+        return lastModified;
     }
 
     @Override
-    public void print(String indent) {
-        System.out.println(indent + name);
+    public long totalSize() {
+        return size;
+    }
+
+    @Override
+    public int fileCount() {
+        return 1;
+    }
+
+    @Override
+    public int depth() {
+        return 0;
     }
   }
 
   // Composite: object that contains other objects
+  // Aggregates are cached per folder. add() invalidates only the ancestor path;
+  // a valid folder always has valid descendants, so invalidation can stop at the
+  // first folder that is already invalid. Like the child list itself, this is
+  // not safe for concurrent mutation.
   public static class Folder implements FileSystemNode {
+    // Below this many levels under the starting folder, aggregate tasks
+    // stop forking and finish their subtree on one worker
+    private static final int FORK_LEVELS = 6;
+    // Small folders find children by scanning the list; bigger ones get a name map
+    private static final int NAME_MAP_THRESHOLD = 8;
+
     private final String name;
     private final List<FileSystemNode> children = new ArrayList<>();
+    private Map<String, FileSystemNode> byName;
+    private Folder parent;
+    // Tree-wide "a/b/c" -> node index; only ever set on a root folder
+    private Map<String, FileSystemNode> pathIndex;
+    // Set once this folder is registered in some root's path index
+    private boolean indexed;
+
+    private boolean aggregatesValid;
+    private long totalSize;
+    private int fileCount;
+    private int depth;
 
     Folder(String name) {
         this.name = name;
     }
 
     public void add(FileSystemNode node) {
+        if (child(node.name()) != null) {
+            throw new IllegalArgumentException("Duplicate name in " + name + ": " + node.name());
+        }
+        if (node instanceof Folder) {
+            Folder f = (Folder) node;
+            if (f.parent != null) {
+                throw new IllegalArgumentException("Folder already attached: " + f.name);
+            }
+            // f is a root, so it is an ancestor of this exactly when it is this tree's root
+            for (Folder up = this; up != null; up = up.parent) {
+                if (up == f) throw new IllegalArgumentException("Folder would contain itself: " + f.name);
+            }
+            f.parent = this;
+            f.pathIndex = null; // no longer a root; the new root's index takes over
+        }
         children.add(node);
+        if (byName != null) {
+            byName.put(node.name(), node);
+        } else if (children.size() > NAME_MAP_THRESHOLD) {
+            byName = new HashMap<>();
+            for (FileSystemNode c : children) byName.put(c.name(), c);
+        }
+        for (Folder f = this; f != null && f.aggregatesValid; f = f.parent) {
+            f.aggregatesValid = false;
+        }
+
+        if (indexed || pathIndex != null) {
+            Folder root = this;
+            while (root.parent != null) root = root.parent;
+            if (root.pathIndex != null) {
+                indexSubtree(root.pathIndex, pathFromRoot(), node);
+            }
+        }
+    }
+
+    // Direct child by name, or null
+    public FileSystemNode child(String childName) {
+        if (byName != null) return byName.get(childName);
+        for (FileSystemNode c : children) {
+            if (c.name().equals(childName)) return c;
+        }
+        return null;
+    }
+
+    // Build a path index for the whole tree; afterwards add() keeps it current
+    public void enablePathIndex() {
+        if (parent != null) throw new IllegalStateException("Path index lives on the root folder");
+        pathIndex = new HashMap<>();
+        indexed = true;
+        for (FileSystemNode c : children) indexSubtree(pathIndex, "", c);
+    }
+
+    // Resolve "images/logo.png" relative to this folder; null if absent
+    public FileSystemNode resolve(String path) {
+        if (path.isEmpty()) return this;
+        Folder root = this;
+        while (root.parent != null) root = root.parent;
+        if (root.pathIndex != null) {
+            return root.pathIndex.get(root == this ? path : pathFromRoot() + path);
+        }
+        FileSystemNode node = this;
+        int start = 0;
+        while (true) {
+            int slash = path.indexOf('/', start);
+            node = ((Folder) node).child(path.substring(start, slash < 0 ? path.length() : slash));
+            if (slash < 0 || node == null) return node;
+            if (!(node instanceof Folder)) return null;
+            start = slash + 1;
+        }
+    }
+
+    // "a/b/" for a folder two levels under the root, "" for the root itself
+    private String pathFromRoot() {
+        List<String> names = new ArrayList<>();
+        for (Folder f = this; f.parent != null; f = f.parent) names.add(f.name);
+        StringBuilder sb = new StringBuilder();
+        for (int i = names.size() - 1; i >= 0; i--) sb.append(names.get(i)).append('/');
+        return sb.toString();
+    }
+
+    private static void indexSubtree(Map<String, FileSystemNode> index, String prefix, FileSystemNode top) {
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add(prefix);
+        top.accept((node, depth) -> {
+            String path = prefixes.get(depth) + node.name();
+            index.put(path, node);
+            if (node instanceof Folder) ((Folder) node).indexed = true;
+            if (node.isFolder()) {
+                String childPrefix = path + '/';
+                if (prefixes.size() > depth + 1) prefixes.set(depth + 1, childPrefix);
+                else prefixes.add(childPrefix);
+            }
+        });
     }
 
     @Override
-    public void print(String indent) {
-        System.out.println(indent + name + "/");
-        String childIndent = indent + "  ";
+    public long totalSize() {
+        ensureAggregates();
+        return totalSize;
+    }
+
+    @Override
+    public int fileCount() {
+        ensureAggregates();
+        return fileCount;
+    }
+
+    @Override
+    public int depth() {
+        ensureAggregates();
+        return depth;
+    }
+
+    // Fill every stale cache in this subtree, splitting work over the pool
+    public void computeAggregates(ForkJoinPool pool) {
+        pool.invoke(new AggregateTask(this, 0));
+    }
+
+    private void ensureAggregates() {
+        if (!aggregatesValid) computeSequentially(this);
+    }
+
+    // Post-order over stale folders only; valid subtrees are not entered.
+    // Other folder implementations keep their own aggregates and are not entered.
+    private static void computeSequentially(Folder start) {
+        start.accept(new NodeVisitor() {
+            @Override
+            public void visit(FileSystemNode node, int depth) {}
+
+            @Override
+            public boolean descend(FileSystemNode folder, int depth) {
+                return folder instanceof Folder && !((Folder) folder).aggregatesValid;
+            }
+
+            @Override
+            public void leave(FileSystemNode folder, int depth) {
+                if (folder instanceof Folder) ((Folder) folder).combineChildren();
+            }
+        });
+    }
+
+    // Children are all up to date here
+    private void combineChildren() {
+        long size = 0;
+        int files = 0;
+        int levels = 0;
         for (FileSystemNode child : children) {
-            child.print(childIndent);
+            size += child.totalSize();
+            files += child.fileCount();
+            levels = Math.max(levels, child.depth() + 1);
+        }
+        totalSize = size;
+        fileCount = files;
+        depth = levels;
+        aggregatesValid = true;
+    }
+
+    private static final class AggregateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Folder folder;
+        private final int level;
+
+        AggregateTask(Folder folder, int level) {
+            this.folder = folder;
+            this.level = level;
         }
+
+        @Override
+        protected void compute() {
+            if (folder.aggregatesValid) return;
+            if (level >= FORK_LEVELS) {
+                computeSequentially(folder);
+                return;
+            }
+            List<AggregateTask> subtasks = new ArrayList<>();
+            for (FileSystemNode child : folder.children) {
+                if (child instanceof Folder) subtasks.add(new AggregateTask((Folder) child, level + 1));
+            }
+            invokeAll(subtasks);
+            folder.combineChildren();
+        }
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean isFolder() {
+        return true;
+    }
+
+    @Override
+    public List<FileSystemNode> children() {
+        return Collections.unmodifiableList(children);
     }
   }
 
-  public static void main(String[] args) {
+  // Compact, array-backed tree for millions of nodes. Links live in int[]
+  // columns (parent / first child / last child / next sibling) indexed by node
+  // id, and each distinct name is stored once as UTF-8 in a shared byte arena.
+  // Names are interned through an open-addressing int[] table that compares
+  // against the arena bytes, so no String is kept per name.
+  // node(id) hands out a small FileSystemNode view, so walkers, the renderer and
+  // aggregate queries work unchanged. Append-only; names are not checked for
+  // duplicates. Parents always have smaller ids than their children, which lets
+  // aggregates be computed in one reverse pass over the columns.
+  public static final class CompactTree {
+    private static final int NONE = -1;
+
+    private int count;
+    private int[] parent = new int[16];
+    private int[] firstChild = new int[16];
+    private int[] lastChild = new int[16];
+    private int[] nextSibling = new int[16];
+    private int[] nameId = new int[16];
+    private long[] size = new long[16]; // file size; -1 marks a folder
+
+    private byte[] arena = new byte[256];
+    private int arenaUsed;
+    private int names;
+    private int[] nameStart = new int[16];
+    private int[] nameLength = new int[16];
+    private int[] nameHash = new int[16];
+    private int[] nameTable = new int[32]; // name id + 1; 0 = empty slot
+
+    private boolean aggregatesValid;
+    private long[] subtreeSize;
+    private int[] subtreeFiles;
+    private int[] subtreeDepth;
+
+    public CompactTree(String rootName) {
+      append(NONE, rootName, -1);
+    }
+
+    public static CompactTree copyOf(FileSystemNode root) {
+      CompactTree tree = new CompactTree(root.name());
+      List<Integer> ids = new ArrayList<>();
+      ids.add(0);
+      root.accept((node, depth) -> {
+        if (depth == 0) return;
+        int id = node.isFolder()
+            ? tree.addFolder(ids.get(depth - 1), node.name())
+            : tree.addFile(ids.get(depth - 1), node.name(), node.totalSize());
+        if (ids.size() > depth) ids.set(depth, id);
+        else ids.add(id);
+      });
+      return tree;
+    }
+
+    public int root() {
+      return 0;
+    }
+
+    public int addFolder(int parentId, String name) {
+      return append(checkFolder(parentId), name, -1);
+    }
+
+    public int addFile(int parentId, String name, long fileSize) {
+      if (fileSize < 0) throw new IllegalArgumentException("Negative size: " + fileSize);
+      return append(checkFolder(parentId), name, fileSize);
+    }
+
+    public FileSystemNode node(int id) {
+      if (id < 0 || id >= count) throw new IndexOutOfBoundsException("No node " + id);
+      return new NodeView(id);
+    }
+
+    public int size() {
+      return count;
+    }
+
+    // Bytes held by the columns, the name arena and the intern table
+    public long footprintBytes() {
+      long ints = 5L * parent.length + 3L * nameStart.length + nameTable.length;
+      long aggregates = subtreeSize == null ? 0 : 16L * subtreeSize.length;
+      return ints * Integer.BYTES + (long) size.length * Long.BYTES + arena.length + aggregates;
+    }
+
+    private int checkFolder(int id) {
+      if (id < 0 || id >= count || size[id] >= 0) throw new IllegalArgumentException("Not a folder: " + id);
+      return id;
+    }
+
+    private int append(int parentId, String name, long fileSize) {
+      if (count == parent.length) {
+        int n = count * 2;
+        parent = Arrays.copyOf(parent, n);
+        firstChild = Arrays.copyOf(firstChild, n);
+        lastChild = Arrays.copyOf(lastChild, n);
+        nextSibling = Arrays.copyOf(nextSibling, n);
+        nameId = Arrays.copyOf(nameId, n);
+        size = Arrays.copyOf(size, n);
+      }
+      int id = count++;
+      parent[id] = parentId;
+      firstChild[id] = NONE;
+      lastChild[id] = NONE;
+      nextSibling[id] = NONE;
+      nameId[id] = intern(name);
+      size[id] = fileSize;
+      if (parentId != NONE) {
+        if (lastChild[parentId] == NONE) firstChild[parentId] = id;
+        else nextSibling[lastChild[parentId]] = id;
+        lastChild[parentId] = id;
+      }
+      aggregatesValid = false;
+      return id;
+    }
+
+    private int intern(String name) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      int hash = Arrays.hashCode(bytes);
+      int mask = nameTable.length - 1;
+      int slot = mix(hash) & mask;
+      for (; nameTable[slot] != 0; slot = (slot + 1) & mask) {
+        int id = nameTable[slot] - 1;
+        if (nameHash[id] == hash && Arrays.equals(arena, nameStart[id], nameStart[id] + nameLength[id],
+            bytes, 0, bytes.length)) {
+          return id;
+        }
+      }
+      if (arenaUsed + bytes.length > arena.length) {
+        arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + bytes.length));
+      }
+      int id = names++;
+      if (id == nameStart.length) {
+        nameStart = Arrays.copyOf(nameStart, id * 2);
+        nameLength = Arrays.copyOf(nameLength, id * 2);
+        nameHash = Arrays.copyOf(nameHash, id * 2);
+      }
+      System.arraycopy(bytes, 0, arena, arenaUsed, bytes.length);
+      nameStart[id] = arenaUsed;
+      nameLength[id] = bytes.length;
+      nameHash[id] = hash;
+      arenaUsed += bytes.length;
+      nameTable[slot] = id + 1;
+      if (2 * names > nameTable.length) growNameTable();
+      return id;
+    }
+
+    // Keeps the table at most half full
+    private void growNameTable() {
+      int[] table = new int[nameTable.length * 2];
+      int mask = table.length - 1;
+      for (int id = 0; id < names; id++) {
+        int slot = mix(nameHash[id]) & mask;
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = id + 1;
+      }
+      nameTable = table;
+    }
+
+    private static int mix(int h) {
+      return h ^ (h >>> 16);
+    }
+
+    private void ensureAggregates() {
+      if (aggregatesValid) return;
+      subtreeSize = new long[count];
+      subtreeFiles = new int[count];
+      subtreeDepth = new int[count];
+      for (int id = count - 1; id >= 0; id--) {
+        if (size[id] >= 0) {
+          subtreeSize[id] = size[id];
+          subtreeFiles[id] = 1;
+        }
+        int p = parent[id];
+        if (p != NONE) {
+          subtreeSize[p] += subtreeSize[id];
+          subtreeFiles[p] += subtreeFiles[id];
+          subtreeDepth[p] = Math.max(subtreeDepth[p], subtreeDepth[id] + 1);
+        }
+      }
+      aggregatesValid = true;
+    }
+
+    private final class NodeView implements FileSystemNode {
+      private final int id;
+
+      NodeView(int id) {
+        this.id = id;
+      }
+
+      @Override
+      public String name() {
+        int n = nameId[id];
+        return new String(arena, nameStart[n], nameLength[n], StandardCharsets.UTF_8);
+      }
+
+      @Override
+      public boolean isFolder() {
+        return size[id] < 0;
+      }
+
+      @Override
+      public Iterable<FileSystemNode> children() {
+        return () -> new Iterator<FileSystemNode>() {
+          private int next = firstChild[id];
+
+          @Override
+          public boolean hasNext() {
+            return next != NONE;
+          }
+
+          @Override
+          public FileSystemNode next() {
+            if (next == NONE) throw new NoSuchElementException();
+            FileSystemNode view = new NodeView(next);
+            next = nextSibling[next];
+            return view;
+          }
+        };
+      }
+
+      @Override
+      public long totalSize() {
+        ensureAggregates();
+        return subtreeSize[id];
+      }
+
+      @Override
+      public int fileCount() {
+        ensureAggregates();
+        return subtreeFiles[id];
+      }
+
+      @Override
+      public int depth() {
+        ensureAggregates();
+        return subtreeDepth[id];
+      }
+    }
+  }
+
+  // Builds a Folder / FileLeaf tree from a real directory. Each subdirectory is
+  // its own fork-join task; entries are streamed from a DirectoryStream (never a
+  // full listing in memory) and attributes are read in one call per entry.
+  // Symbolic links are not followed and show up as files.
+  // Entries below the root that vanish or cannot be read while loading are
+  // left out and passed to onSkipped (called from pool threads); only a
+  // failure on the root itself fails the load. If the load does fail, the
+  // subtasks already forked are cancelled.
+  public static final class DirectoryLoader {
+    private DirectoryLoader() {}
+
+    public static Folder load(Path dir, ForkJoinPool pool) throws IOException {
+      return load(dir, pool, e -> {});
+    }
+
+    public static Folder load(Path dir, ForkJoinPool pool, Consumer<IOException> onSkipped) throws IOException {
+      try {
+        return pool.invoke(new LoadTask(dir, true, onSkipped));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+
+    private static final class LoadTask extends RecursiveTask<Folder> {
+      private static final long serialVersionUID = 1L;
+
+      private final Path dir;
+      private final boolean root;
+      private final Consumer<IOException> onSkipped;
+
+      LoadTask(Path dir, boolean root, Consumer<IOException> onSkipped) {
+        this.dir = dir;
+        this.root = root;
+        this.onSkipped = onSkipped;
+      }
+
+      // null when this (non-root) directory could not be read at all
+      @Override
+      protected Folder compute() {
+        Path fileName = dir.getFileName();
+        Folder folder = new Folder(fileName == null ? dir.toString() : fileName.toString());
+        List<LoadTask> subdirs = new ArrayList<>();
+        try {
+          try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+              if (isCancelled()) break;
+              BasicFileAttributes attrs;
+              try {
+                attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+              } catch (IOException e) {
+                onSkipped.accept(e); // vanished or unreadable entry
+                continue;
+              }
+              if (attrs.isDirectory()) {
+                LoadTask task = new LoadTask(entry, false, onSkipped);
+                task.fork();
+                subdirs.add(task);
+              } else {
+                folder.add(new FileLeaf(entry.getFileName().toString(),
+                    attrs.size(), attrs.lastModifiedTime().toMillis()));
+              }
+            }
+          } catch (DirectoryIteratorException e) {
+            // listing broke off part way: keep what was read
+            onSkipped.accept(e.getCause());
+          } catch (IOException e) {
+            if (root) throw new UncheckedIOException(e);
+            onSkipped.accept(e);
+            return null;
+          }
+          // Join newest first so this worker pops its own unstolen forks
+          for (int i = subdirs.size() - 1; i >= 0; i--) {
+            Folder sub = subdirs.get(i).join();
+            if (sub != null) folder.add(sub);
+          }
+          return folder;
+        } catch (RuntimeException | Error e) {
+          for (LoadTask t : subdirs) t.cancel(false);
+          throw e;
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
       Folder root = new Folder("root");
       root.add(new FileLeaf("readme.txt"));
       root.add(new FileLeaf("notes.md"));
@@ -58,6 +751,99 @@ public class CompositePattern {
       root.add(images);
 
       root.print("");
+
+      root.enablePathIndex();
+      root.add(new FileLeaf("todo.txt"));
+      System.out.println("resolve images/logo.png -> " + root.resolve("images/logo.png").name());
+      System.out.println("resolve todo.txt -> " + root.resolve("todo.txt").name());
+      System.out.println("from images: banner.jpg -> " + images.resolve("banner.jpg").name());
+
+      // Streaming visitor: count nodes without building any strings
+      int[] counts = new int[2];
+      root.accept((node, depth) -> counts[node.isFolder() ? 0 : 1]++);
+      System.out.println(counts[0] + " folders, " + counts[1] + " files");
+      System.out.println("resolve missing -> " + root.resolve("images/nope.png"));
+
+      // A chain far deeper than the thread stack would allow recursively
+      Folder deep = new Folder("deep");
+      Folder cur = deep;
+      for (int i = 0; i < 100_000; i++) {
+          Folder next = new Folder("d" + i);
+          cur.add(next);
+          cur = next;
+      }
+      int[] maxDepth = new int[1];
+      deep.accept((node, depth) -> maxDepth[0] = Math.max(maxDepth[0], depth));
+      System.out.println("deep chain depth: " + maxDepth[0]);
+      System.out.println("unindexed resolve d0/d1/d2 -> " + deep.resolve("d0/d1/d2").name());
+
+      // Cached aggregates: computed in parallel once, then patched along the ancestor path
+      Folder sized = new Folder("sized");
+      for (int i = 0; i < 8; i++) {
+          Folder dir = new Folder("dir" + i);
+          for (int j = 0; j < 1_000; j++) dir.add(new FileLeaf("f" + j, j));
+          sized.add(dir);
+      }
+      sized.computeAggregates(ForkJoinPool.commonPool());
+      System.out.println(sized.fileCount() + " files, " + sized.totalSize() + " bytes, depth " + sized.depth());
+      Folder extra = new Folder("extra");
+      extra.add(new FileLeaf("big.bin", 1_000_000));
+      sized.add(extra);
+      System.out.println(sized.fileCount() + " files, " + sized.totalSize() + " bytes, depth " + sized.depth());
+      System.out.println("deep chain aggregate depth: " + deep.depth());
+
+      // Load a synthetic directory from disk
+      Path tmp = Files.createTempDirectory("composite");
+      try {
+          for (int i = 0; i < 3; i++) {
+              Path sub = Files.createDirectories(tmp.resolve("dir" + i).resolve("nested"));
+              Files.writeString(tmp.resolve("dir" + i).resolve("a.txt"), "hello");
+              Files.writeString(sub.resolve("b.txt"), "hello world");
+          }
+          Folder loaded = DirectoryLoader.load(tmp, ForkJoinPool.commonPool());
+          System.out.println("loaded " + loaded.fileCount() + " files, " + loaded.totalSize()
+              + " bytes, depth " + loaded.depth());
+          FileSystemNode b = loaded.resolve("dir1/nested/b.txt");
+          System.out.println("dir1/nested/b.txt modified at " + ((FileLeaf) b).lastModified());
+      } finally {
+          try (Stream<Path> paths = Files.walk(tmp)) {
+              paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+          }
+      }
+
+      // Same tree, compact store: print it through the FileSystemNode facade
+      CompactTree compact = CompactTree.copyOf(root);
+      compact.node(compact.root()).print("");
+
+      // Rough heap comparison for a large tree with unique file names (JOL is not
+      // on the classpath here, so this uses before/after heap usage rather than
+      // exact object layouts)
+      int folders = 2_000;
+      int filesPerFolder = 100;
+      long before = usedHeap();
+      Folder big = new Folder("big");
+      for (int i = 0; i < folders; i++) {
+          Folder dir = new Folder("dir" + i);
+          for (int j = 0; j < filesPerFolder; j++) dir.add(new FileLeaf("file-" + i + "-" + j + ".txt", j));
+          big.add(dir);
+      }
+      long objectTree = usedHeap() - before;
+      before = usedHeap();
+      CompactTree bigCompact = new CompactTree("big");
+      for (int i = 0; i < folders; i++) {
+          int dir = bigCompact.addFolder(bigCompact.root(), "dir" + i);
+          for (int j = 0; j < filesPerFolder; j++) bigCompact.addFile(dir, "file-" + i + "-" + j + ".txt", j);
+      }
+      long compactTree = usedHeap() - before;
+      System.out.println(bigCompact.size() + " nodes: object tree ~" + objectTree / 1024 + " KiB, compact ~"
+          + compactTree / 1024 + " KiB (columns " + bigCompact.footprintBytes() / 1024 + " KiB)");
+      System.out.println("same totals: " + (big.totalSize() == bigCompact.node(0).totalSize()));
+  }
+
+  private static long usedHeap() {
+      Runtime rt = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++) System.gc();
+      return rt.totalMemory() - rt.freeMemory();
   }
   
 }
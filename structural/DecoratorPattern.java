@@ -1,3 +1,10 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
 public class DecoratorPattern {
   // Component
   public interface Beverage {
@@ -12,11 +19,83 @@ public class DecoratorPattern {
   }
 
   // Base decorator (holds reference to wrapped Beverage)
+  // Each decorator only states its own add-on; cost and description are read
+  // from a flattened snapshot of the whole chain, built once and cached.
+  // inner is final, so a chain can never change under a cached snapshot:
+  // "rebuilding" a chain means new decorator objects, which start uncached.
+  // Decorators are additive only: cost() and getDescription() are final, so a
+  // decorator cannot change the price in a way the snapshot would miss.
+  // Non-additive rules (e.g. a percentage discount) belong outside the chain.
   public static abstract class BeverageDecorator implements Beverage {
     protected final Beverage inner;
+    private volatile BeverageSnapshot snapshot;
+
     protected BeverageDecorator(Beverage inner) { this.inner = inner; }
-    @Override public String getDescription() { return inner.getDescription(); }
-    @Override public double cost() { return inner.cost(); }
+
+    protected abstract String addOnName();
+    protected abstract double addOnCost();
+
+    public BeverageSnapshot snapshot() {
+      BeverageSnapshot s = snapshot;
+      if (s == null) {
+        s = BeverageSnapshot.of(this);
+        snapshot = s; // benign race: every thread computes an equal immutable value
+      }
+      return s;
+    }
+
+    @Override public final String getDescription() { return snapshot().getDescription(); }
+    @Override public final double cost() { return snapshot().cost(); }
+  }
+
+  // Flattened, immutable view of a decorator chain: total cost,
+  // description and add-ons (innermost first), computed without recursion
+  public static final class BeverageSnapshot implements Beverage {
+    private final String description;
+    private final double cost;
+    private final List<String> addOns;
+
+    private BeverageSnapshot(String description, double cost, List<String> addOns) {
+      this.description = description;
+      this.cost = cost;
+      this.addOns = addOns;
+    }
+
+    public static BeverageSnapshot of(Beverage beverage) {
+      if (beverage instanceof BeverageSnapshot) return (BeverageSnapshot) beverage;
+
+      // Walk outer -> inner once, collecting decorators; stop early at an
+      // inner decorator that already has a snapshot and build on top of it
+      List<BeverageDecorator> chain = new ArrayList<>();
+      Beverage b = beverage;
+      while (b instanceof BeverageDecorator) {
+        BeverageDecorator d = (BeverageDecorator) b;
+        if (d != beverage && d.snapshot != null) {
+          b = d.snapshot;
+          break;
+        }
+        chain.add(d);
+        b = d.inner;
+      }
+
+      // Rebuild inner -> outer with a single builder; summing in the same
+      // order as the recursive version keeps the double result identical
+      BeverageSnapshot base = (b instanceof BeverageSnapshot) ? (BeverageSnapshot) b : null;
+      StringBuilder sb = new StringBuilder(b.getDescription());
+      double total = b.cost();
+      List<String> addOns = new ArrayList<>(base != null ? base.addOns : List.of());
+      for (int i = chain.size() - 1; i >= 0; i--) {
+        BeverageDecorator d = chain.get(i);
+        sb.append(", ").append(d.addOnName());
+        total += d.addOnCost();
+        addOns.add(d.addOnName());
+      }
+      return new BeverageSnapshot(sb.toString(), total, Collections.unmodifiableList(addOns));
+    }
+
+    @Override public String getDescription() { return description; }
+    @Override public double cost() { return cost; }
+    public List<String> addOns() { return addOns; }
   }
 
   // Concrete decorators
@@ -25,14 +104,14 @@ public class DecoratorPattern {
       super(inner); 
     }
 
-    @Override 
-    public String getDescription() { 
-      return inner.getDescription() + ", Milk";
+    @Override
+    protected String addOnName() {
+      return "Milk";
     }
 
     @Override
-    public double cost() {
-      return inner.cost() + 0.5;
+    protected double addOnCost() {
+      return 0.5;
     }
   }
 
@@ -42,13 +121,99 @@ public class DecoratorPattern {
     }
 
     @Override
-    public String getDescription() {
-      return inner.getDescription() + ", Sugar";
+    protected String addOnName() {
+      return "Sugar";
     }
 
     @Override
-    public double cost() {
-      return inner.cost() + 0.2;
+    protected double addOnCost() {
+      return 0.2;
+    }
+  }
+
+  // Known add-ons; the ordinal is the add-on's code in a combination key
+  public enum AddOn {
+    MILK(MilkDecorator::new),
+    SUGAR(SugarDecorator::new);
+
+    private final UnaryOperator<Beverage> wrap;
+
+    AddOn(UnaryOperator<Beverage> wrap) { this.wrap = wrap; }
+
+    Beverage wrap(Beverage inner) { return wrap.apply(inner); }
+  }
+
+  // Canonicalising catalogue: one shared, pre-flattened Beverage per distinct
+  // ordered add-on combination. Decorators are immutable, so sharing is safe.
+  // A combination key packs (ordinal + 1) into 4-bit slots, innermost first,
+  // so up to 15 layers of up to 15 add-on kinds fit into one long.
+  // Lookup walks a small trie by nibble and allocates nothing once warm.
+  public static class BeverageCatalogue {
+    private static final int BITS = 4;
+    private static final int MAX_LAYERS = Long.SIZE / BITS - 1;
+    private static final AddOn[] ADD_ONS = AddOn.values(); // values() clones on every call
+
+    private final Node root;
+    private final AtomicInteger distinct = new AtomicInteger(1);
+
+    public BeverageCatalogue(Beverage base) {
+      this.root = new Node(base);
+    }
+
+    public static long key(AddOn... addOns) {
+      if (addOns.length > MAX_LAYERS) throw new IllegalArgumentException("Too many add-ons: " + addOns.length);
+      long key = 0;
+      for (int i = addOns.length - 1; i >= 0; i--) {
+        key = (key << BITS) | (addOns[i].ordinal() + 1);
+      }
+      return key;
+    }
+
+    // Same as key(addOns) but for a chain stacked on top of an existing key
+    public static long with(long key, AddOn outer) {
+      int layers = (Long.SIZE - Long.numberOfLeadingZeros(key) + BITS - 1) / BITS;
+      if (layers >= MAX_LAYERS) throw new IllegalArgumentException("Too many add-ons");
+      return key | ((long) (outer.ordinal() + 1) << (layers * BITS));
+    }
+
+    public Beverage get(AddOn... addOns) {
+      return get(key(addOns));
+    }
+
+    public Beverage get(long key) {
+      Node node = root;
+      for (long k = key; k != 0; k >>>= BITS) {
+        node = node.child(ADD_ONS[(int) (k & 0xF) - 1]);
+      }
+      return node.beverage;
+    }
+
+    public int distinct() {
+      return distinct.get();
+    }
+
+    private final class Node {
+      final Beverage beverage;
+      final AtomicReferenceArray<Node> next = new AtomicReferenceArray<>(ADD_ONS.length);
+
+      Node(Beverage beverage) {
+        this.beverage = beverage;
+        if (beverage instanceof BeverageDecorator) {
+          ((BeverageDecorator) beverage).snapshot(); // warm before sharing
+        }
+      }
+
+      Node child(AddOn addOn) {
+        int i = addOn.ordinal();
+        Node n = next.get(i);
+        if (n != null) return n;
+        Node created = new Node(addOn.wrap(beverage));
+        if (next.compareAndSet(i, null, created)) {
+          distinct.incrementAndGet();
+          return created;
+        }
+        return next.get(i); // another thread won; use the canonical one
+      }
     }
   }
 
@@ -68,5 +233,17 @@ public class DecoratorPattern {
     // Or compose inline
     Beverage fancy = new SugarDecorator(new MilkDecorator(new SimpleCoffee()));
     System.out.println(fancy.getDescription() + " -> $" + fancy.cost());
+
+    // Flatten once, then query the immutable snapshot as often as needed
+    BeverageSnapshot flat = BeverageSnapshot.of(fancy);
+    System.out.println(flat.getDescription() + " -> $" + flat.cost() + " add-ons " + flat.addOns());
+
+    // Shared instances for repeated combinations
+    BeverageCatalogue catalogue = new BeverageCatalogue(new SimpleCoffee());
+    long milkSugar = BeverageCatalogue.key(AddOn.MILK, AddOn.SUGAR);
+    Beverage order1 = catalogue.get(milkSugar);
+    Beverage order2 = catalogue.get(AddOn.MILK, AddOn.SUGAR);
+    System.out.println(order1.getDescription() + " -> $" + order1.cost()
+        + " shared=" + (order1 == order2) + " distinct=" + catalogue.distinct());
   }
 }
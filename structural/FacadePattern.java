@@ -1,3 +1,12 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class FacadePattern {
   // Subsystem classes (complex)
   static class Amplifier {
@@ -19,34 +28,157 @@ public class FacadePattern {
     void off() { System.out.println("Projector off"); }
   }
 
-  // Facade that simplifies the subsystem
+  // Small dependency graph of subsystem steps. A step starts as soon as all of
+  // its dependencies are done, so independent steps run concurrently.
+  static class StepGraph {
+    private static final class Step {
+      final Runnable action;
+      final List<String> deps;
+
+      Step(Runnable action, List<String> deps) {
+        this.action = action;
+        this.deps = deps;
+      }
+    }
+
+    // Insertion order is a valid topological order: deps must already exist
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    StepGraph step(String name, Runnable action, String... deps) {
+      for (String d : deps) {
+        if (!steps.containsKey(d)) throw new IllegalArgumentException("Unknown dependency: " + d);
+      }
+      if (steps.putIfAbsent(name, new Step(action, List.of(deps))) != null) {
+        throw new IllegalArgumentException("Duplicate step: " + name);
+      }
+      return this;
+    }
+
+    // Adds the step only when needed; dependencies on steps that were left out
+    // are already satisfied and are dropped
+    StepGraph stepIf(boolean needed, String name, Runnable action, String... deps) {
+      if (!needed) return this;
+      return step(name, action, Arrays.stream(deps).filter(steps::containsKey).toArray(String[]::new));
+    }
+
+    // A failed step fails its dependents (they never run) and the returned future
+    CompletableFuture<Void> run(Executor executor) {
+      Map<String, CompletableFuture<Void>> done = new LinkedHashMap<>();
+      steps.forEach((name, s) -> {
+        CompletableFuture<?>[] deps = s.deps.stream().map(done::get).toArray(CompletableFuture[]::new);
+        done.put(name, CompletableFuture.allOf(deps).thenRunAsync(s.action, executor));
+      });
+      return CompletableFuture.allOf(done.values().toArray(new CompletableFuture<?>[0]));
+    }
+  }
+
+  // Target state of the whole theater. movie == null means nothing is playing.
+  // The projector has no command to leave widescreen, so widescreen = false
+  // only matters when the projector is switched off.
+  static final class Scene {
+    static final Scene OFF = new Scene(false, false, false, 0, false, null);
+
+    final boolean projectorOn;
+    final boolean widescreen;
+    final boolean ampOn;
+    final int volume;
+    final boolean dvdOn;
+    final String movie;
+
+    Scene(boolean projectorOn, boolean widescreen, boolean ampOn, int volume, boolean dvdOn, String movie) {
+      if (widescreen && !projectorOn) throw new IllegalArgumentException("Widescreen needs the projector on");
+      if (movie != null && !dvdOn) throw new IllegalArgumentException("Playing needs the DVD player on");
+      this.projectorOn = projectorOn;
+      this.widescreen = widescreen;
+      this.ampOn = ampOn;
+      this.volume = volume;
+      this.dvdOn = dvdOn;
+      this.movie = movie;
+    }
+
+    static Scene movie(String movie, int volume) {
+      return new Scene(true, true, true, volume, true, movie);
+    }
+  }
+
+  // Facade that simplifies the subsystem. It remembers what it last told each
+  // device, so applying a scene only sends the commands that change something;
+  // re-applying the current scene sends nothing. Scenes are applied one after
+  // another, each planned against the state the previous one left behind.
+  // A failed command leaves its part of the known state untouched, so the
+  // next scene retries it.
   static class HomeTheaterFacade {
+    private static final int UNKNOWN_VOLUME = Integer.MIN_VALUE;
+
+    // Device commands block (warm-ups, spin-ups), so by default they get their own
+    // daemon threads instead of the common pool; one thread per device is enough
+    private static final ExecutorService DEVICE_THREADS = Executors.newFixedThreadPool(3, r -> {
+      Thread t = new Thread(r, "home-theater");
+      t.setDaemon(true);
+      return t;
+    });
+
     private final Amplifier amp;
     private final DvdPlayer dvd;
     private final Projector projector;
+    private final Executor executor;
+
+    // Known device state; each field is written only by its own device's steps
+    private volatile boolean projectorOn;
+    private volatile boolean widescreen;
+    private volatile boolean ampOn;
+    private volatile int volume = UNKNOWN_VOLUME;
+    private volatile boolean dvdOn;
+    private volatile String playing;
+
+    private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
 
     public HomeTheaterFacade(Amplifier amp, DvdPlayer dvd, Projector projector) {
+      this(amp, dvd, projector, DEVICE_THREADS);
+    }
+
+    public HomeTheaterFacade(Amplifier amp, DvdPlayer dvd, Projector projector, Executor executor) {
       this.amp = amp;
       this.dvd = dvd;
       this.projector = projector;
+      this.executor = executor;
     }
 
-    public void watchMovie(String movie) {
+    public synchronized CompletableFuture<Void> applyScene(Scene target) {
+      last = last.exceptionally(e -> null).thenCompose(ignored -> plan(target).run(executor));
+      return last;
+    }
+
+    public CompletableFuture<Void> watchMovie(String movie) {
       System.out.println("Get ready to watch a movie...");
-      projector.on();
-      projector.wideScreenMode();
-      amp.on();
-      amp.setVolume(5);
-      dvd.on();
-      dvd.play(movie);
+      return applyScene(Scene.movie(movie, 5));
     }
 
-    public void endMovie() {
+    // Stops playback first, then powers devices off concurrently
+    public CompletableFuture<Void> endMovie() {
       System.out.println("Shutting movie theater down...");
-      dvd.stop();
-      dvd.off();
-      amp.off();
-      projector.off();
+      return applyScene(Scene.OFF);
+    }
+
+    // Minimal command graph from the known state to the target
+    StepGraph plan(Scene t) {
+      boolean stop = playing != null && (t.movie == null || !t.movie.equals(playing) || !t.dvdOn);
+      return new StepGraph()
+          .stepIf(stop, "stop", () -> { dvd.stop(); playing = null; })
+          .stepIf(projectorOn && !t.projectorOn, "projector-off",
+              () -> { projector.off(); projectorOn = false; widescreen = false; }, "stop")
+          .stepIf(ampOn && !t.ampOn, "amp-off",
+              () -> { amp.off(); ampOn = false; volume = UNKNOWN_VOLUME; }, "stop")
+          .stepIf(dvdOn && !t.dvdOn, "dvd-off", () -> { dvd.off(); dvdOn = false; }, "stop")
+          .stepIf(!projectorOn && t.projectorOn, "projector-on", () -> { projector.on(); projectorOn = true; })
+          .stepIf(t.widescreen && !widescreen, "widescreen",
+              () -> { projector.wideScreenMode(); widescreen = true; }, "projector-on")
+          .stepIf(!ampOn && t.ampOn, "amp-on", () -> { amp.on(); ampOn = true; })
+          .stepIf(t.ampOn && volume != t.volume, "volume",
+              () -> { amp.setVolume(t.volume); volume = t.volume; }, "amp-on")
+          .stepIf(!dvdOn && t.dvdOn, "dvd-on", () -> { dvd.on(); dvdOn = true; })
+          .stepIf(t.movie != null && !t.movie.equals(playing), "play",
+              () -> { dvd.play(t.movie); playing = t.movie; }, "stop", "dvd-on", "widescreen", "volume");
     }
   }
 
@@ -56,9 +188,13 @@ public class FacadePattern {
     Projector projector = new Projector();
 
     HomeTheaterFacade theater = new HomeTheaterFacade(amp, dvd, projector);
-    theater.watchMovie("Inception");
+    theater.watchMovie("Inception").join();
+    System.out.println("--- again (already in that state) ---");
+    theater.watchMovie("Inception").join();
+    System.out.println("--- louder, same movie ---");
+    theater.applyScene(Scene.movie("Inception", 8)).join();
     System.out.println("--- later ---");
-    theater.endMovie();
+    theater.endMovie().join();
   }
     
 }
@@ -4,8 +4,34 @@ import java.util.List;
 
 public class AlertFactory {
   public static NotificationService createService(String formatType, List<String> channels, List<String> historyRef) {
-    NotificationService service = new NotificationService();
-    // Implement
+    NotificationService service = new NotificationService(createFormatter(formatType));
+    for (String channel : channels) {
+      service.subscribe(createChannel(channel, historyRef));
+    }
     return service;
   }
+
+  public static FormattingStrategy createFormatter(String formatType) {
+    switch (formatType) {
+      case "text":
+        return new TextFormatter();
+      case "json":
+        return new JsonFormatter();
+      default:
+        throw new IllegalArgumentException("Unknown format");
+    }
+  }
+
+  public static NotificationChannel createChannel(String channel, List<String> historyRef) {
+    switch (channel) {
+      case "email":
+        return new EmailChannel(historyRef);
+      case "sms":
+        return new SmsChannel(historyRef);
+      case "log":
+        return new LogChannel(historyRef);
+      default:
+        throw new IllegalArgumentException("Unknown channel: " + channel);
+    }
+  }
 }
@@ -0,0 +1,20 @@
+package tasks.notification.solution;
+
+import java.util.List;
+
+public class EmailChannel extends HistoryChannel {
+  public EmailChannel(List<String> history) {
+    super(history);
+  }
+
+  @Override
+  public String name() {
+    return "email";
+  }
+
+  @Override
+  public String send(String formattedMessage, String severity) {
+    deliver("Email sent to admin@company.com: " + formattedMessage);
+    return "EMAIL_SENT";
+  }
+}
@@ -0,0 +1,6 @@
+package tasks.notification.solution;
+
+// Strategy: how an alert is turned into a message
+public interface FormattingStrategy {
+  String format(String message, String severity);
+}
@@ -0,0 +1,20 @@
+package tasks.notification.solution;
+
+import java.util.List;
+
+// Shared base for the simulated channels: print the output and record it in
+// the history list, which several channel workers may append to at once
+public abstract class HistoryChannel implements NotificationChannel {
+  private final List<String> history;
+
+  protected HistoryChannel(List<String> history) {
+    this.history = history;
+  }
+
+  protected void deliver(String output) {
+    System.out.println(output);
+    synchronized (history) {
+      history.add(output);
+    }
+  }
+}
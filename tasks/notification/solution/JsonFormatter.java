@@ -0,0 +1,12 @@
+package tasks.notification.solution;
+
+import java.time.LocalDateTime;
+
+public class JsonFormatter implements FormattingStrategy {
+  @Override
+  public String format(String message, String severity) {
+    // Manual JSON construction to avoid external library dependencies for this exercise
+    return String.format("{ \"timestamp\": \"%s\", \"level\": \"%s\", \"content\": \"%s\" }",
+        LocalDateTime.now(), severity, message);
+  }
+}
@@ -0,0 +1,20 @@
+package tasks.notification.solution;
+
+import java.util.List;
+
+public class LogChannel extends HistoryChannel {
+  public LogChannel(List<String> history) {
+    super(history);
+  }
+
+  @Override
+  public String name() {
+    return "log";
+  }
+
+  @Override
+  public String send(String formattedMessage, String severity) {
+    deliver("Writing to disk: " + formattedMessage);
+    return "LOGGED";
+  }
+}
@@ -0,0 +1,10 @@
+package tasks.notification.solution;
+
+// Observer: one delivery channel subscribed to the NotificationService.
+// Channels may be called from their own worker threads.
+public interface NotificationChannel {
+  String name();
+
+  // Returns the delivery result code, or null if the channel skipped the alert
+  String send(String formattedMessage, String severity);
+}
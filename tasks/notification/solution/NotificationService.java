@@ -1,14 +1,93 @@
 package tasks.notification.solution;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-public class NotificationService {
+// Subject: formats each alert once, then fans it out to every subscribed
+// channel. Each channel has its own bounded queue and worker threads, so a
+// slow channel (say an email relay) never delays the others. When a channel's
+// queue is full, that channel's future fails with RejectedExecutionException.
+public class NotificationService implements AutoCloseable {
+  private static final int DEFAULT_WORKERS = 1;
+  private static final int DEFAULT_QUEUE_CAPACITY = 1024;
 
-  // Implement
+  private final FormattingStrategy formatter;
+  private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
 
+  public NotificationService(FormattingStrategy formatter) {
+    this.formatter = formatter;
+  }
+
+  public void subscribe(NotificationChannel channel) {
+    subscribe(channel, DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  public synchronized void subscribe(NotificationChannel channel, int workers, int queueCapacity) {
+    Subscription old = subscriptions.put(channel.name(), new Subscription(channel, workers, queueCapacity));
+    if (old != null) old.workers.shutdown();
+  }
+
+  public synchronized void unsubscribe(String channelName) {
+    Subscription old = subscriptions.remove(channelName);
+    if (old != null) old.workers.shutdown();
+  }
+
+  // Per-channel results in subscription order; a future completes with the
+  // channel's result code, or null if the channel skipped the alert
+  public synchronized Map<String, CompletableFuture<String>> notifyAsync(String message, String severity) {
+    String formatted = formatter.format(message, severity);
+    Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+    for (Subscription s : subscriptions.values()) {
+      CompletableFuture<String> f;
+      try {
+        f = CompletableFuture.supplyAsync(() -> s.channel.send(formatted, severity), s.workers);
+      } catch (RejectedExecutionException e) {
+        f = CompletableFuture.failedFuture(e);
+      }
+      results.put(s.channel.name(), f);
+    }
+    return results;
+  }
+
+  // Waits for every channel and returns the codes of those that delivered
   public List<String> notify(String message, String severity) {
-    // Implement
-    return new ArrayList<>();
+    List<String> delivered = new ArrayList<>();
+    for (CompletableFuture<String> f : notifyAsync(message, severity).values()) {
+      try {
+        String r = f.join();
+        if (r != null) delivered.add(r);
+      } catch (CompletionException e) {
+        System.out.println("Delivery failed: " + e.getCause());
+      }
+    }
+    return delivered;
+  }
+
+  @Override
+  public synchronized void close() {
+    subscriptions.values().forEach(s -> s.workers.shutdown());
+  }
+
+  private static final class Subscription {
+    final NotificationChannel channel;
+    final ThreadPoolExecutor workers;
+
+    Subscription(NotificationChannel channel, int workers, int queueCapacity) {
+      this.channel = channel;
+      this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "notify-" + channel.name());
+            t.setDaemon(true);
+            return t;
+          });
+    }
   }
 }
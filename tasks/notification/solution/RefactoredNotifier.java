@@ -2,6 +2,9 @@ package tasks.notification.solution;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 // ==========================================
 // TESTING / ASSERTION SECTION
@@ -61,6 +64,32 @@ public class RefactoredNotifier {
     List<String> res3 = service.notify("System stable", "info");
     verify(!res3.contains("SMS_SENT"), "Test 3 Failed: SMS should be skipped");
 
+    // Test Case 4: a slow email relay must not hold up a critical SMS
+    System.out.println("\nTest 4: Critical (Text) -> slow Email, SMS (SMS first)");
+    service = AlertFactory.createService("text", List.of("sms"), globalHistory);
+    service.subscribe(new NotificationChannel() {
+      @Override
+      public String name() {
+        return "email";
+      }
+
+      @Override
+      public String send(String formattedMessage, String severity) {
+        try {
+          Thread.sleep(500);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return "EMAIL_SENT";
+      }
+    });
+    Map<String, CompletableFuture<String>> res4 = service.notifyAsync("Power failure", "critical");
+    verify("SMS_SENT".equals(res4.get("sms").orTimeout(200, TimeUnit.MILLISECONDS).join()),
+        "Test 4 Failed: SMS delayed by email");
+    verify(!res4.get("email").isDone(), "Test 4 Failed: email should still be in flight");
+    verify("EMAIL_SENT".equals(res4.get("email").join()), "Test 4 Failed: Email not sent");
+    service.close();
+
     System.out.println("\nALL TESTS PASSED. The Refactored Code is Clean, Extensible, and SOLID.");
   }
 
@@ -0,0 +1,25 @@
+package tasks.notification.solution;
+
+import java.util.List;
+
+// Only critical alerts go out by SMS
+public class SmsChannel extends HistoryChannel {
+  public SmsChannel(List<String> history) {
+    super(history);
+  }
+
+  @Override
+  public String name() {
+    return "sms";
+  }
+
+  @Override
+  public String send(String formattedMessage, String severity) {
+    if (!severity.equals("critical")) {
+      System.out.println("SMS skipped (not critical)");
+      return null;
+    }
+    deliver("SMS sent to 555-0199: " + formattedMessage);
+    return "SMS_SENT";
+  }
+}
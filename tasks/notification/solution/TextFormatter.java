@@ -0,0 +1,10 @@
+package tasks.notification.solution;
+
+import java.time.LocalDateTime;
+
+public class TextFormatter implements FormattingStrategy {
+  @Override
+  public String format(String message, String severity) {
+    return String.format("[%s] %s: %s", LocalDateTime.now(), severity.toUpperCase(), message);
+  }
+}